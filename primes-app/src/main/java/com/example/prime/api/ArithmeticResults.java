@@ -0,0 +1,199 @@
+package com.example.prime.api;
+
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import com.example.prime.core.ArithmeticFunction;
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.FactorSegment;
+import com.example.prime.core.SmallestFactorTable;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * An arithmetic function, or the factorization, of every value in a range.
+ * The values are calculated a segment at a time while they are being
+ * marshalled into JSON, so that the whole range never has to be held in
+ * memory.
+ *
+ * E.g. {"function":"phi","from":1,"to":5,"values":[1,1,2,2,4]} or
+ * {"function":"factors","from":11,"to":12,"values":[[11],[2,2,3]]}
+ *
+ * As with {@link StreamingPrimesResults}, a failed calculation aborts the
+ * response rather than returning an error status.
+ */
+@JsonSerialize(using = ArithmeticResults.Serializer.class)
+public class ArithmeticResults {
+
+    /** Label of the factorizations, which aren't an {@link ArithmeticFunction} */
+    public static final String FACTORS = "factors";
+
+    /**
+     * Factorizes the range, passing each segment to a consumer in ascending
+     * order
+     */
+    @FunctionalInterface
+    public interface SegmentSource {
+        void forEach(Consumer<FactorSegment> consumer) throws CalculationException;
+    }
+
+    // null for the factorizations
+    private final ArithmeticFunction function;
+
+    private final int from;
+    private final int to;
+    private final SegmentSource source;
+
+    private ArithmeticResults(
+            final ArithmeticFunction function,
+            final int from,
+            final int to,
+            final SegmentSource source) {
+
+        nonNull(source);
+
+        this.function = function;
+        this.from = from;
+        this.to = to;
+        this.source = source;
+    }
+
+    /**
+     * The value of function for every value in [from,to]
+     */
+    public static ArithmeticResults ofFunction(
+            final ArithmeticFunction function,
+            final int from,
+            final int to,
+            final SegmentSource source) {
+
+        nonNull(function);
+        return new ArithmeticResults(function, from, to, source);
+    }
+
+    /**
+     * The prime factors, with multiplicity, of every value in [from,to]
+     */
+    public static ArithmeticResults ofFactors(
+            final int from,
+            final int to,
+            final SegmentSource source) {
+
+        return new ArithmeticResults(null, from, to, source);
+    }
+
+    public String getFunction() {
+        return function == null ? FACTORS : function.getLabel();
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    /**
+     * Receives the value for each n in ascending order
+     */
+    private interface ValueConsumer {
+
+        void accept(long value) throws IOException;
+
+        void accept(int[] primes, int[] exponents, int distinct) throws IOException;
+    }
+
+    /**
+     * Factorize each value in the range and pass the function of it, or the
+     * factorization itself, to the consumer
+     */
+    private void forEachValue(final ValueConsumer consumer)
+            throws IOException, CalculationException {
+
+        final int[] primes = new int[SmallestFactorTable.MAX_DISTINCT_FACTORS];
+        final int[] exponents = new int[SmallestFactorTable.MAX_DISTINCT_FACTORS];
+
+        try {
+            source.forEach(segment -> {
+                try {
+                    for ( int n = segment.from(); ; n++ ) {
+                        final int distinct = segment.factorize(n, primes, exponents);
+                        if ( function == null ) {
+                            consumer.accept(primes, exponents, distinct);
+                        }
+                        else {
+                            consumer.accept(
+                                    function.apply(n, primes, exponents, distinct));
+                        }
+
+                        // to may be Integer.MAX_VALUE
+                        if ( n == segment.to() ) {
+                            break;
+                        }
+                    }
+                }
+                catch ( final IOException ex ) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+        catch ( final UncheckedIOException ex ) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Writes each value as soon as its segment has been factorized
+     */
+    static final class Serializer extends JsonSerializer<ArithmeticResults> {
+
+        @Override
+        public void serialize(
+                final ArithmeticResults value,
+                final JsonGenerator gen,
+                final SerializerProvider serializers) throws IOException {
+
+            gen.writeStartObject();
+            gen.writeStringField("function", value.getFunction());
+            gen.writeNumberField("from", value.from);
+            gen.writeNumberField("to", value.to);
+            gen.writeArrayFieldStart("values");
+
+            try {
+                value.forEachValue(new ValueConsumer() {
+                    @Override
+                    public void accept(final long value) throws IOException {
+                        gen.writeNumber(value);
+                    }
+
+                    @Override
+                    public void accept(
+                            final int[] primes,
+                            final int[] exponents,
+                            final int distinct) throws IOException {
+
+                        gen.writeStartArray();
+                        for ( int k = 0; k < distinct; k++ ) {
+                            for ( int e = 0; e < exponents[k]; e++ ) {
+                                gen.writeNumber(primes[k]);
+                            }
+                        }
+                        gen.writeEndArray();
+                    }
+                });
+            }
+            catch ( final CalculationException ex ) {
+                throw new IOException("Failed to calculate values", ex);
+            }
+
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.prime.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A single query within a {@link BatchRequest}.
+ *
+ * The 'query' field selects the kind of answer:
+ * <li> upto  - the primes in [2,upto]
+ * <li> range - the primes in [from,to]
+ * <li> count - the number of primes in [2,upto] or [from,to]
+ * <li> test  - whether 'value' is prime
+ */
+@JsonInclude(Include.NON_NULL)
+public class BatchQuery {
+
+    public static final String UPTO = "upto";
+    public static final String RANGE = "range";
+    public static final String COUNT = "count";
+    public static final String TEST = "test";
+
+    private final String query;
+    private final Integer upto;
+    private final Integer from;
+    private final Integer to;
+    private final Integer value;
+
+    @JsonCreator
+    public BatchQuery(
+            @JsonProperty("query") final String query,
+            @JsonProperty("upto") final Integer upto,
+            @JsonProperty("from") final Integer from,
+            @JsonProperty("to") final Integer to,
+            @JsonProperty("value") final Integer value) {
+
+        this.query = query;
+        this.upto = upto;
+        this.from = from;
+        this.to = to;
+        this.value = value;
+    }
+
+    @JsonProperty
+    public String getQuery() {
+        return query;
+    }
+
+    @JsonProperty
+    public Integer getUpto() {
+        return upto;
+    }
+
+    @JsonProperty
+    public Integer getFrom() {
+        return from;
+    }
+
+    @JsonProperty
+    public Integer getTo() {
+        return to;
+    }
+
+    @JsonProperty
+    public Integer getValue() {
+        return value;
+    }
+}
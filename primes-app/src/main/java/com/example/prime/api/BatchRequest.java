@@ -0,0 +1,37 @@
+package com.example.prime.api;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A list of queries that are answered from a single prime calculation
+ */
+@JsonInclude(Include.NON_NULL)
+public class BatchRequest {
+
+    private final String algorithm;
+    private final List<BatchQuery> queries;
+
+    @JsonCreator
+    public BatchRequest(
+            @JsonProperty("algorithm") final String algorithm,
+            @JsonProperty("queries") final List<BatchQuery> queries) {
+
+        this.algorithm = algorithm;
+        this.queries = queries;
+    }
+
+    @JsonProperty
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    @JsonProperty
+    public List<BatchQuery> getQueries() {
+        return queries;
+    }
+}
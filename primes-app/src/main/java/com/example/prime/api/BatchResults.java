@@ -0,0 +1,90 @@
+package com.example.prime.api;
+
+import static java.util.Objects.nonNull;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.jersey.errors.ErrorMessage;
+
+/**
+ * The answers to a {@link BatchRequest}, in the same order as the queries
+ */
+public class BatchResults {
+
+    private final List<Result> results;
+
+    /**
+     * The answer to a single {@link BatchQuery}. Only the field relevant to
+     * the query is present; 'error' is present if the query was rejected.
+     */
+    @JsonInclude(Include.NON_NULL)
+    public static final class Result {
+        private final List<Integer> primes;
+        private final Integer count;
+        private final Boolean prime;
+        private final ErrorMessage error;
+
+        private Result(
+                final List<Integer> primes,
+                final Integer count,
+                final Boolean prime,
+                final ErrorMessage error) {
+
+            this.primes = primes;
+            this.count = count;
+            this.prime = prime;
+            this.error = error;
+        }
+
+        public static Result ofPrimes(final List<Integer> primes) {
+            return new Result(primes, null, null, null);
+        }
+
+        public static Result ofCount(final int count) {
+            return new Result(null, count, null, null);
+        }
+
+        public static Result ofTest(final boolean prime) {
+            return new Result(null, null, prime, null);
+        }
+
+        public static Result ofError(final int code, final String message) {
+            return new Result(null, null, null, new ErrorMessage(code, message));
+        }
+
+        @JsonProperty
+        public List<Integer> getPrimes() {
+            return primes;
+        }
+
+        @JsonProperty
+        public Integer getCount() {
+            return count;
+        }
+
+        @JsonProperty
+        public Boolean getPrime() {
+            return prime;
+        }
+
+        @JsonProperty
+        public ErrorMessage getError() {
+            return error;
+        }
+    }
+
+    public BatchResults(final List<Result> results) {
+        nonNull(results);
+
+        this.results = results;
+    }
+
+    @JsonProperty
+    public List<Result> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.prime.api;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A list of numbers to factorize
+ */
+public class FactorBatchRequest {
+
+    private final List<Long> numbers;
+
+    @JsonCreator
+    public FactorBatchRequest(
+            @JsonProperty("numbers") final List<Long> numbers) {
+
+        this.numbers = numbers;
+    }
+
+    @JsonProperty
+    public List<Long> getNumbers() {
+        return numbers;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.prime.api;
+
+import static java.util.Objects.nonNull;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The answers to a {@link FactorBatchRequest}, in the same order as the
+ * numbers
+ */
+public class FactorBatchResults {
+
+    private final List<FactorResults> results;
+
+    public FactorBatchResults(final List<FactorResults> results) {
+        nonNull(results);
+
+        this.results = results;
+    }
+
+    @JsonProperty
+    public List<FactorResults> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.prime.api;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.jersey.errors.ErrorMessage;
+
+/**
+ * The prime factors of a number that can be marshalled into JSON. 'error' is
+ * present instead of 'factors' if the number could not be factorized.
+ */
+@JsonInclude(Include.NON_NULL)
+public class FactorResults {
+
+    private final long n;
+    private final List<Long> factors;
+    private final ErrorMessage error;
+
+    public FactorResults(final long n, final List<Long> factors) {
+        this(n, factors, null);
+    }
+
+    public FactorResults(final long n, final ErrorMessage error) {
+        this(n, null, error);
+    }
+
+    private FactorResults(
+            final long n,
+            final List<Long> factors,
+            final ErrorMessage error) {
+
+        this.n = n;
+        this.factors = factors;
+        this.error = error;
+    }
+
+    @JsonProperty
+    public long getN() {
+        return n;
+    }
+
+    @JsonProperty
+    public List<Long> getFactors() {
+        return factors;
+    }
+
+    @JsonProperty
+    public ErrorMessage getError() {
+        return error;
+    }
+}
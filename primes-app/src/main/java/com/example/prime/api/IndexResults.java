@@ -0,0 +1,80 @@
+package com.example.prime.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The answer to a query of the precomputed primes' index, along with the
+ * parameter that was asked about. Only the fields relevant to the query are
+ * present.
+ */
+@JsonInclude(Include.NON_NULL)
+public class IndexResults {
+
+    private final Integer upto;
+    private final Integer n;
+    private final Integer value;
+    private final Integer count;
+    private final Integer prime;
+
+    private IndexResults(
+            final Integer upto,
+            final Integer n,
+            final Integer value,
+            final Integer count,
+            final Integer prime) {
+
+        this.upto = upto;
+        this.n = n;
+        this.value = value;
+        this.count = count;
+        this.prime = prime;
+    }
+
+    /**
+     * The number of primes up to and including upto
+     */
+    public static IndexResults ofCount(final int upto, final int count) {
+        return new IndexResults(upto, null, null, count, null);
+    }
+
+    /**
+     * The n'th prime
+     */
+    public static IndexResults ofNth(final int n, final int prime) {
+        return new IndexResults(null, n, null, null, prime);
+    }
+
+    /**
+     * The prime nearest to value, in whichever direction was asked for
+     */
+    public static IndexResults ofNearest(final int value, final int prime) {
+        return new IndexResults(null, null, value, null, prime);
+    }
+
+    @JsonProperty
+    public Integer getUpto() {
+        return upto;
+    }
+
+    @JsonProperty
+    public Integer getN() {
+        return n;
+    }
+
+    @JsonProperty
+    public Integer getValue() {
+        return value;
+    }
+
+    @JsonProperty
+    public Integer getCount() {
+        return count;
+    }
+
+    @JsonProperty
+    public Integer getPrime() {
+        return prime;
+    }
+}
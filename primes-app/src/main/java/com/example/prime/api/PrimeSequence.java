@@ -0,0 +1,20 @@
+package com.example.prime.api;
+
+import java.util.function.IntConsumer;
+
+import com.example.prime.core.CalculationException;
+
+/**
+ * Primes that are marshalled into JSON as {"primes":[...]}, whether they are
+ * held as a list or calculated while they are being written
+ */
+public interface PrimeSequence {
+
+    /**
+     * Pass every prime to the consumer in ascending order
+     *
+     * @throws CalculationException if the primes are calculated on demand
+     *         and the calculation fails
+     */
+    void forEachPrime(IntConsumer consumer) throws CalculationException;
+}
@@ -3,13 +3,15 @@ package com.example.prime.api;
 import static java.util.Objects.nonNull;
 
 import java.util.List;
+import java.util.function.IntConsumer;
 
+import com.example.prime.core.IntList;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
  * A list of primes that can be marshalled into JSON
  */
-public class PrimesResults {
+public class PrimesResults implements PrimeSequence {
 
     private List<Integer> primes;
 
@@ -23,4 +25,21 @@ public class PrimesResults {
     public List<Integer> getPrimes() {
         return primes;
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The primes aren't boxed if they are held in an {@link IntList}
+     */
+    @Override
+    public void forEachPrime(final IntConsumer consumer) {
+        if ( primes instanceof IntList ) {
+            ((IntList) primes).forEachInt(consumer);
+        }
+        else {
+            for ( final Integer prime : primes ) {
+                consumer.accept(prime);
+            }
+        }
+    }
 }
@@ -0,0 +1,92 @@
+package com.example.prime.api;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Aggregate statistics about a range of primes that can be marshalled into
+ * JSON. Only the requested aggregates are present.
+ */
+@JsonInclude(Include.NON_NULL)
+public class StatisticsResults {
+
+    private final int upto;
+    private final Long count;
+    private final Long sum;
+    private final MaxGap maxGap;
+    private final Map<String, Long> constellations;
+    private final Map<String, List<Integer>> tuples;
+
+    /**
+     * The largest gap between consecutive primes and the prime preceding it
+     */
+    public static final class MaxGap {
+        private final int gap;
+        private final int after;
+
+        public MaxGap(final int gap, final int after) {
+            this.gap = gap;
+            this.after = after;
+        }
+
+        @JsonProperty
+        public int getGap() {
+            return gap;
+        }
+
+        @JsonProperty
+        public int getAfter() {
+            return after;
+        }
+    }
+
+    public StatisticsResults(
+            final int upto,
+            final Long count,
+            final Long sum,
+            final MaxGap maxGap,
+            final Map<String, Long> constellations,
+            final Map<String, List<Integer>> tuples) {
+
+        this.upto = upto;
+        this.count = count;
+        this.sum = sum;
+        this.maxGap = maxGap;
+        this.constellations = constellations;
+        this.tuples = tuples;
+    }
+
+    @JsonProperty
+    public int getUpto() {
+        return upto;
+    }
+
+    @JsonProperty
+    public Long getCount() {
+        return count;
+    }
+
+    @JsonProperty
+    public Long getSum() {
+        return sum;
+    }
+
+    @JsonProperty
+    public MaxGap getMaxGap() {
+        return maxGap;
+    }
+
+    @JsonProperty
+    public Map<String, Long> getConstellations() {
+        return constellations;
+    }
+
+    @JsonProperty
+    public Map<String, List<Integer>> getTuples() {
+        return tuples;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.prime.api;
+
+import static java.util.Objects.nonNull;
+
+import java.util.function.IntConsumer;
+
+import com.example.prime.core.CalculationException;
+
+/**
+ * Primes that are calculated while they are being marshalled into JSON, so
+ * that the whole list never has to be held in memory. Unlike
+ * {@link PrimesResults} they can't be read as a list.
+ *
+ * The primes are written by
+ * {@link com.example.prime.application.serialization.PrimesResultsWriter},
+ * with the same JSON as {@link PrimesResults}. Because the response has
+ * already started by the time the calculation runs, a failed calculation
+ * aborts the response rather than returning an error status.
+ */
+public class StreamingPrimesResults implements PrimeSequence {
+
+    /**
+     * Calculates the primes, passing each one to a consumer in ascending order
+     */
+    @FunctionalInterface
+    public interface PrimeSource {
+        void forEach(IntConsumer consumer) throws CalculationException;
+    }
+
+    private final PrimeSource source;
+
+    public StreamingPrimesResults(final PrimeSource source) {
+        nonNull(source);
+
+        this.source = source;
+    }
+
+    /**
+     * Calculate the primes, passing each one to the consumer as soon as it
+     * has been calculated
+     */
+    @Override
+    public void forEachPrime(final IntConsumer consumer) throws CalculationException {
+        source.forEach(consumer);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.prime.application;
+
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.HeapEstimator;
+import com.example.prime.core.PrimeSupplier;
+import com.example.prime.core.StreamingPrimeSupplier;
+
+/**
+ * Decides how to calculate a list of primes without running out of memory.
+ *
+ * The heap needed by the requested {@link PrimeSupplier} is estimated and
+ * compared with the heap that is currently free. If it won't fit then the
+ * primes are streamed instead, which only needs a small, fixed amount of
+ * memory. A {@link StreamingPrimeSupplier} streams its own primes, so e.g.
+ * the distributed sieve still spreads the work across its peers, any other
+ * algorithm is replaced by the streaming sieve. If that won't fit either then
+ * the request is rejected.
+ *
+ * Suppliers that don't implement {@link HeapEstimator} are always run
+ * directly.
+ */
+public class ExecutionPlanner {
+
+    /**
+     * How the calculation should be performed
+     */
+    public enum Decision {
+        /** Run the requested algorithm */
+        DIRECT,
+        /** Stream the primes, see {@link ExecutionPlanner#stream} */
+        STREAM,
+        /** The calculation can never fit into the heap */
+        TOO_LARGE,
+        /** The calculation can't fit into the heap that is currently free */
+        INSUFFICIENT_MEMORY
+    }
+
+    // fraction of the free heap that a calculation may use, the rest is left
+    // for concurrent requests and estimation errors
+    private static final double DEFAULT_HEADROOM = 0.8;
+
+    private final StreamingPrimeSupplier streamingSieve;
+    private final LongSupplier freeHeap;
+    private final LongSupplier maxHeap;
+    private final double headroom;
+
+    /**
+     * Construct a new {@link ExecutionPlanner}
+     *
+     * @param streamingSieve  streams primes when a direct calculation won't
+     *                        fit and the requested algorithm can't stream,
+     *                        or null to only stream algorithms that can
+     * @param freeHeap        number of bytes of heap currently available
+     * @param maxHeap         largest number of bytes the heap can grow to
+     * @param headroom        fraction of the free heap a calculation may use
+     */
+    public ExecutionPlanner(
+            final StreamingPrimeSupplier streamingSieve,
+            final LongSupplier freeHeap,
+            final LongSupplier maxHeap,
+            final double headroom) {
+
+        this.streamingSieve = streamingSieve;
+        this.freeHeap = freeHeap;
+        this.maxHeap = maxHeap;
+        this.headroom = headroom;
+    }
+
+    /**
+     * A planner that compares estimates with the heap of this JVM
+     *
+     * @param streamingSieve  streams primes when a direct calculation won't
+     *                        fit and the requested algorithm can't stream,
+     *                        or null to only stream algorithms that can
+     */
+    public static ExecutionPlanner forRuntime(
+            final StreamingPrimeSupplier streamingSieve) {
+
+        final Runtime runtime = Runtime.getRuntime();
+
+        return new ExecutionPlanner(
+                streamingSieve,
+                () -> runtime.maxMemory()
+                        - (runtime.totalMemory() - runtime.freeMemory()),
+                runtime::maxMemory,
+                DEFAULT_HEADROOM);
+    }
+
+    /**
+     * A planner that always runs the requested algorithm
+     */
+    public static ExecutionPlanner unlimited() {
+        return new ExecutionPlanner(
+                null,
+                () -> Long.MAX_VALUE,
+                () -> Long.MAX_VALUE,
+                1.0);
+    }
+
+    /**
+     * Decide how to calculate the primes up to upperBound
+     *
+     * @param supplier        the requested algorithm
+     * @param upperBound      largest value that may appear in the list
+     * @param allowStreaming  whether the caller can accept streamed primes
+     */
+    public Decision plan(
+            final PrimeSupplier supplier,
+            final int upperBound,
+            final boolean allowStreaming) {
+
+        if ( !(supplier instanceof HeapEstimator) ) {
+            return Decision.DIRECT;
+        }
+
+        final long direct =
+                ((HeapEstimator) supplier).estimateHeapBytes(upperBound);
+
+        if ( direct == HeapEstimator.UNKNOWN ) {
+            return Decision.DIRECT;
+        }
+
+        final long available = (long) (freeHeap.getAsLong() * headroom);
+
+        if ( direct <= available ) {
+            return Decision.DIRECT;
+        }
+
+        final StreamingPrimeSupplier streamer = streamerFor(supplier);
+        final boolean canStream = allowStreaming && streamer != null;
+        final long smallest =
+                canStream
+                    ? Math.min(direct,
+                               streamer.estimateStreamingHeapBytes(upperBound))
+                    : direct;
+
+        if ( canStream && smallest <= available ) {
+            return Decision.STREAM;
+        }
+
+        return smallest > maxHeap.getAsLong() * headroom
+                ? Decision.TOO_LARGE
+                : Decision.INSUFFICIENT_MEMORY;
+    }
+
+    /**
+     * Stream the primes up to upperBound, with the requested algorithm if it
+     * can stream and the streaming sieve otherwise. Only valid if
+     * {@link #plan} has returned {@link Decision#STREAM}.
+     *
+     * @param supplier  the requested algorithm
+     *
+     * @throws CalculationException if the calculation cannot be completed
+     */
+    public void stream(
+            final PrimeSupplier supplier,
+            final int upperBound,
+            final IntConsumer consumer) throws CalculationException {
+
+        final StreamingPrimeSupplier streamer = streamerFor(supplier);
+        if ( streamer == null ) {
+            throw new IllegalStateException("Streaming is not available");
+        }
+
+        streamer.stream(upperBound, consumer);
+    }
+
+    /**
+     * The supplier that streams in place of the requested one, or null if
+     * neither can
+     */
+    private StreamingPrimeSupplier streamerFor(final PrimeSupplier supplier) {
+        return supplier instanceof StreamingPrimeSupplier
+                ? (StreamingPrimeSupplier) supplier
+                : streamingSieve;
+    }
+}
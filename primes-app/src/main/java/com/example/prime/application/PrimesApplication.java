@@ -3,19 +3,47 @@ package com.example.prime.application;
 import static java.lang.Runtime.getRuntime;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
 
 import com.example.prime.api.MetadataResults;
+import com.example.prime.application.cluster.ClusterConfiguration;
+import com.example.prime.application.cluster.DistributedSieve;
+import com.example.prime.application.cluster.PeerClient;
+import com.example.prime.application.generate.GenerateCommand;
+import com.example.prime.application.recording.FlightRecorderTask;
+import com.example.prime.application.recording.SerializationInterceptor;
+import com.example.prime.application.resources.ArithmeticResource;
+import com.example.prime.application.resources.FactorResource;
 import com.example.prime.application.resources.MetadataResource;
 import com.example.prime.application.resources.PrimesResource;
+import com.example.prime.application.resources.RangeResource;
+import com.example.prime.application.resources.StatisticsResource;
+import com.example.prime.application.serialization.PrimesResultsWriter;
 import com.example.prime.core.SegmentedSieve;
+import com.example.prime.core.ArithmeticSieve;
+import com.example.prime.core.AtkinSieve;
 import com.example.prime.core.EratosthenesSieve;
 import com.example.prime.core.ErrorGeneratingPrimeSupplier;
+import com.example.prime.core.Factorizer;
+import com.example.prime.core.FlightRecorderEvents;
+import com.example.prime.core.LinearSieve;
+import com.example.prime.core.PrecomputedSieve;
+import com.example.prime.core.PrimeStreamSupplier;
 import com.example.prime.core.PrimeSupplier;
+import com.example.prime.core.SegmentKernel;
+import com.example.prime.core.SegmentKernels;
 import com.example.prime.core.SundaramSieve;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import io.dropwizard.Application;
+import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 
 /**
@@ -23,6 +51,9 @@ import io.dropwizard.setup.Environment;
  */
 public class PrimesApplication extends Application<PrimesConfiguration> {
 
+    private static final Logger LOG =
+            LoggerFactory.getLogger(PrimesApplication.class);
+
     public static void main(String[] args) throws Exception {
         new PrimesApplication().run(args);
     }
@@ -31,38 +62,164 @@ public class PrimesApplication extends Application<PrimesConfiguration> {
     public String getName() {
         return "primes";
     }
+
+    @Override
+    public void initialize(final Bootstrap<PrimesConfiguration> bootstrap) {
+        bootstrap.addCommand(new GenerateCommand());
+    }
     
     @Override
     public void run(
             final PrimesConfiguration configuration, 
             final Environment environment) throws Exception {
 
+        // The work queue is unbounded, so the pool never grows beyond
+        // minThreads. Fix the size of the pool to use every core.
         final ExecutorService executorService = 
                 environment.lifecycle().executorService("SegmentedSieve-worker")
+                                       .minThreads(getRuntime().availableProcessors())
                                        .maxThreads(getRuntime().availableProcessors())
                                        .build();
         
+        final SegmentedSieve segmentedSieve = new SegmentedSieve(executorService);
+
         // Install the primes resource
         final Map<String, PrimeSupplier> algorithms = new HashMap<>();
         algorithms.put("sundaram", new SundaramSieve());
         algorithms.put("eratosthenes", new EratosthenesSieve());
-        algorithms.put("segmented", new SegmentedSieve(executorService));
+        algorithms.put("segmented", segmentedSieve);
+        algorithms.put("atkin", new AtkinSieve(executorService));
+        algorithms.put("linear", new LinearSieve());
+        algorithms.put("stream", new PrimeStreamSupplier());
+
+        // Only offered if this JVM supports the Vector API, otherwise it would
+        // just be a second copy of 'segmented'
+        final Optional<SegmentKernel> vectorKernel = SegmentKernels.vector();
+        if ( vectorKernel.isPresent() ) {
+            LOG.info("The 'vector' algorithm uses {}", vectorKernel.get());
+            algorithms.put(
+                    "vector",
+                    new SegmentedSieve(executorService, vectorKernel.get()));
+        }
+        else {
+            LOG.info("The Vector API is not available in this JVM, the "
+                        + "'vector' algorithm is disabled");
+        }
+
+        // Answers from memory once the warm-up has precomputed the primes
+        final PrecomputedSieve precomputedSieve =
+                new PrecomputedSieve(segmentedSieve);
+        algorithms.put("precomputed", precomputedSieve);
         algorithms.put("error", new ErrorGeneratingPrimeSupplier());
+
+        // Spread the calculation across the peers, if there are any
+        final ClusterConfiguration cluster = configuration.getCluster();
+        if ( !cluster.getPeers().isEmpty() ) {
+            // Requests spend their time waiting for the peers, so they get
+            // a pool of their own that grows as needed
+            final ExecutorService requestService =
+                    environment.lifecycle().executorService("DistributedSieve-request")
+                                           .minThreads(0)
+                                           .maxThreads(Integer.MAX_VALUE)
+                                           .workQueue(new SynchronousQueue<>())
+                                           .build();
+
+            algorithms.put(
+                    "distributed",
+                    new DistributedSieve(
+                            cluster,
+                            new PeerClient(
+                                    environment.getObjectMapper().getFactory(),
+                                    cluster.getConnectTimeout(),
+                                    cluster.getReadTimeout()),
+                            requestService));
+        }
         
         final PrimesResource primesResource = 
                 new PrimesResource(
                         algorithms::get,
                         configuration.getDefaultBounds(),
-                        configuration.getDefaultAlgorithm());
+                        configuration.getDefaultAlgorithm(),
+                        ExecutionPlanner.forRuntime(segmentedSieve),
+                        precomputedSieve::getBitmap);
         
         environment.jersey().register(primesResource);
+
+        // Write lists of primes without going through Jackson
+        final PrimesResultsWriter primesResultsWriter = new PrimesResultsWriter();
+        environment.jersey().register(primesResultsWriter);
+
+        // Install the range resource, which serves windows to coordinators
+        final RangeResource rangeResource =
+                new RangeResource(
+                        segmentedSieve,
+                        cluster.getMaxWindowSize());
+
+        environment.jersey().register(rangeResource);
+
+        // Install the statistics resource
+        final StatisticsResource statisticsResource =
+                new StatisticsResource(
+                        segmentedSieve,
+                        configuration.getDefaultBounds(),
+                        configuration.getMaxTupleBounds());
+
+        environment.jersey().register(statisticsResource);
         
+        // Install the factorization resource, the table of small primes is
+        // calculated once up front and shared by every request
+        final FactorResource factorResource =
+                new FactorResource(
+                        new Factorizer(
+                                segmentedSieve,
+                                Factorizer.DEFAULT_TRIAL_BOUND),
+                        executorService,
+                        getRuntime().availableProcessors());
+
+        environment.jersey().register(factorResource);
+
+        // Install the arithmetic function resource
+        final ArithmeticResource arithmeticResource =
+                new ArithmeticResource(
+                        new ArithmeticSieve(executorService));
+
+        environment.jersey().register(arithmeticResource);
+
         // Install the metadata resource
         final MetadataResource metadataResource = 
                 new MetadataResource(
                         MetadataResults.metadataFor(algorithms));
                         
         environment.jersey().register(metadataResource);
+
+        // Warm up in the background, reporting unhealthy until finished. Only
+        // the algorithms that run on this instance are warmed up, so that
+        // starting doesn't send requests to the peers or wait for them to be
+        // up, and 'error' would only fail.
+        final Set<String> localAlgorithms = new HashSet<>(algorithms.keySet());
+        localAlgorithms.remove("distributed");
+        localAlgorithms.remove("error");
+
+        final WarmUp warmUp =
+                new WarmUp(
+                        configuration.getWarmUp(),
+                        precomputedSieve,
+                        primesResource,
+                        localAlgorithms,
+                        primesResultsWriter);
+
+        environment.lifecycle().manage(warmUp);
+        environment.healthChecks().register("warm-up", warmUp.healthCheck());
+
+        // Record the sieve and request events with Flight Recorder, which can
+        // be started and stopped from the admin port
+        if ( FlightRecorderEvents.AVAILABLE ) {
+            environment.jersey().register(new SerializationInterceptor());
+            environment.admin().addTask(new FlightRecorderTask());
+        }
+        else {
+            LOG.info("Flight Recorder is not available in this JVM");
+        }
     }
 
 }
@@ -1,8 +1,12 @@
 package com.example.prime.application;
 
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
 import org.hibernate.validator.constraints.NotEmpty;
 import org.hibernate.validator.constraints.Range;
 
+import com.example.prime.application.cluster.ClusterConfiguration;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import io.dropwizard.Configuration;
@@ -14,6 +18,17 @@ public class PrimesConfiguration extends Configuration {
     
     @NotEmpty
     private String defaultAlgorithm;
+
+    @Range(min=2)
+    private int maxTupleBounds = 10000000;
+
+    @Valid
+    @NotNull
+    private WarmUpConfiguration warmUp = new WarmUpConfiguration();
+
+    @Valid
+    @NotNull
+    private ClusterConfiguration cluster = new ClusterConfiguration();
     
     @JsonProperty
     public int getDefaultBounds() {
@@ -34,4 +49,37 @@ public class PrimesConfiguration extends Configuration {
     public void setDefaultAlgorithm(String defaultAlgorithm) {
         this.defaultAlgorithm = defaultAlgorithm;
     }
+
+    /**
+     * Largest upto for which '/primes/stats' lists constellations
+     */
+    @JsonProperty
+    public int getMaxTupleBounds() {
+        return maxTupleBounds;
+    }
+
+    @JsonProperty
+    public void setMaxTupleBounds(int maxTupleBounds) {
+        this.maxTupleBounds = maxTupleBounds;
+    }
+
+    @JsonProperty
+    public WarmUpConfiguration getWarmUp() {
+        return warmUp;
+    }
+
+    @JsonProperty
+    public void setWarmUp(WarmUpConfiguration warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    @JsonProperty
+    public ClusterConfiguration getCluster() {
+        return cluster;
+    }
+
+    @JsonProperty
+    public void setCluster(ClusterConfiguration cluster) {
+        this.cluster = cluster;
+    }
 }
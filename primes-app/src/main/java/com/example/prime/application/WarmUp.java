@@ -0,0 +1,169 @@
+package com.example.prime.application;
+
+import static java.util.Objects.nonNull;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.health.HealthCheck;
+import com.example.prime.api.PrimeSequence;
+import com.example.prime.application.resources.PrimesResource;
+import com.example.prime.application.serialization.PrimesResultsWriter;
+import com.example.prime.core.PrecomputedSieve;
+import com.google.common.base.Optional;
+import com.google.common.io.ByteStreams;
+
+import io.dropwizard.lifecycle.Managed;
+
+/**
+ * Prepares a freshly started instance to serve requests at full speed.
+ *
+ * The warm-up precomputes the primes for the 'precomputed' algorithm, then
+ * calls each algorithm through the {@link PrimesResource} and serializes the
+ * results with the {@link PrimesResultsWriter} enough times for the JIT to
+ * compile the hot paths.
+ *
+ * It runs on a background thread so that the server can start, and reports
+ * through {@link #healthCheck()} so that load balancers can hold off sending
+ * traffic until it has finished.
+ */
+public class WarmUp implements Managed, Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WarmUp.class);
+
+    private final WarmUpConfiguration configuration;
+    private final PrecomputedSieve precomputedSieve;
+    private final PrimesResource primesResource;
+    private final Collection<String> algorithms;
+    private final PrimesResultsWriter resultsWriter;
+
+    private volatile Thread thread;
+
+    // set once the warm-up has finished, successfully or otherwise
+    private volatile boolean finished;
+    private volatile Exception failure;
+
+    /**
+     * Construct a new {@link WarmUp}
+     *
+     * @param configuration     what to warm up
+     * @param precomputedSieve  sieve whose primes are precomputed
+     * @param primesResource    resource to call
+     * @param algorithms        names of the algorithms to call
+     * @param resultsWriter     writer used to serialize the results
+     */
+    public WarmUp(
+            final WarmUpConfiguration configuration,
+            final PrecomputedSieve precomputedSieve,
+            final PrimesResource primesResource,
+            final Collection<String> algorithms,
+            final PrimesResultsWriter resultsWriter) {
+
+        nonNull(configuration);
+        nonNull(precomputedSieve);
+        nonNull(primesResource);
+        nonNull(algorithms);
+        nonNull(resultsWriter);
+
+        this.configuration = configuration;
+        this.precomputedSieve = precomputedSieve;
+        this.primesResource = primesResource;
+        this.algorithms = algorithms;
+        this.resultsWriter = resultsWriter;
+    }
+
+    @Override
+    public void start() {
+        if ( !configuration.isEnabled() ) {
+            finished = true;
+            return;
+        }
+
+        thread = new Thread(this, "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        final Thread current = thread;
+        if ( current != null ) {
+            current.interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        final long start = System.nanoTime();
+
+        try {
+            precomputedSieve.precompute(configuration.getPrecomputeBounds());
+
+            LOG.info("Precomputed {} primes up to {}",
+                     precomputedSieve.getBitmap().count(),
+                     configuration.getPrecomputeBounds());
+
+            for ( final String algorithm : algorithms ) {
+                exercise(algorithm);
+            }
+
+            LOG.info("Warm-up finished in {}ms",
+                     TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        catch ( final Exception ex ) {
+            LOG.error("Warm-up failed", ex);
+            failure = ex;
+        }
+        finally {
+            finished = true;
+        }
+    }
+
+    /**
+     * Reports healthy only once the warm-up has finished successfully
+     */
+    public HealthCheck healthCheck() {
+        return new HealthCheck() {
+            @Override
+            protected Result check() {
+                if ( !finished ) {
+                    return Result.unhealthy("Warm-up in progress");
+                }
+                if ( failure != null ) {
+                    return Result.unhealthy(failure);
+                }
+                return Result.healthy();
+            }
+        };
+    }
+
+    /**
+     * Call the algorithm repeatedly and serialize each result
+     */
+    private void exercise(final String algorithm) throws Exception {
+        for ( int i = 0; i < configuration.getIterations(); i++ ) {
+            if ( Thread.currentThread().isInterrupted() ) {
+                throw new InterruptedException("Warm-up interrupted");
+            }
+
+            final PrimeSequence results;
+            try {
+                results = primesResource.calculatePrimes(
+                                Optional.of(configuration.getBounds()),
+                                Optional.of(algorithm));
+            }
+            catch ( final WebApplicationException ex ) {
+                // This algorithm doesn't work, e.g. 'error', there's no point
+                // warming it up any further
+                return;
+            }
+
+            resultsWriter.write(results, ByteStreams.nullOutputStream());
+        }
+    }
+}
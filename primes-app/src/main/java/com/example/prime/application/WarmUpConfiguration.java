@@ -0,0 +1,77 @@
+package com.example.prime.application;
+
+import javax.validation.constraints.Min;
+
+import org.hibernate.validator.constraints.Range;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Settings for the warm-up phase that runs when the application starts
+ */
+public class WarmUpConfiguration {
+
+    private boolean enabled = true;
+
+    @Range(min=2)
+    private int precomputeBounds = 10000000;
+
+    @Range(min=2)
+    private int bounds = 100000;
+
+    @Min(0)
+    private int iterations = 100;
+
+    /**
+     * Whether to warm up at all. If not the application reports healthy
+     * straight away.
+     */
+    @JsonProperty
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @JsonProperty
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Upper bound of the primes held in memory by the 'precomputed' algorithm
+     */
+    @JsonProperty
+    public int getPrecomputeBounds() {
+        return precomputeBounds;
+    }
+
+    @JsonProperty
+    public void setPrecomputeBounds(int precomputeBounds) {
+        this.precomputeBounds = precomputeBounds;
+    }
+
+    /**
+     * Upper bound used for each warm-up request
+     */
+    @JsonProperty
+    public int getBounds() {
+        return bounds;
+    }
+
+    @JsonProperty
+    public void setBounds(int bounds) {
+        this.bounds = bounds;
+    }
+
+    /**
+     * Number of warm-up requests made to each algorithm
+     */
+    @JsonProperty
+    public int getIterations() {
+        return iterations;
+    }
+
+    @JsonProperty
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.prime.application.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.Duration;
+
+/**
+ * Settings for distributing calculations across several instances of the
+ * application
+ */
+public class ClusterConfiguration {
+
+    @NotNull
+    private List<String> peers = new ArrayList<>();
+
+    @Min(2)
+    private int windowSize = 10000000;
+
+    @Min(2)
+    private int maxWindowSize = 100000000;
+
+    @Min(1)
+    private int maxAttempts = 3;
+
+    @Min(1)
+    private int concurrency = 8;
+
+    @NotNull
+    private Duration hedgeDelay = Duration.milliseconds(500);
+
+    @NotNull
+    private Duration connectTimeout = Duration.seconds(2);
+
+    @NotNull
+    private Duration readTimeout = Duration.seconds(30);
+
+    /**
+     * Base URLs of the instances that calculate windows for the 'distributed'
+     * algorithm, e.g. http://localhost:8080. The algorithm is only available
+     * if at least one peer is configured.
+     */
+    @JsonProperty
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    @JsonProperty
+    public void setPeers(List<String> peers) {
+        this.peers = peers;
+    }
+
+    /**
+     * Number of values in each window sent to a peer
+     */
+    @JsonProperty
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    @JsonProperty
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Largest window this instance will calculate for a coordinator
+     */
+    @JsonProperty
+    public int getMaxWindowSize() {
+        return maxWindowSize;
+    }
+
+    @JsonProperty
+    public void setMaxWindowSize(int maxWindowSize) {
+        this.maxWindowSize = maxWindowSize;
+    }
+
+    /**
+     * Largest number of requests made for a single window, including retries
+     * and hedged requests
+     */
+    @JsonProperty
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    @JsonProperty
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Number of windows requested at the same time
+     */
+    @JsonProperty
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @JsonProperty
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * How long to wait for a peer before sending the same window to another
+     */
+    @JsonProperty
+    public Duration getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    @JsonProperty
+    public void setHedgeDelay(Duration hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    @JsonProperty
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    @JsonProperty
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    @JsonProperty
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    @JsonProperty
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+}
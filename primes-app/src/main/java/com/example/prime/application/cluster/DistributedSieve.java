@@ -0,0 +1,251 @@
+package com.example.prime.application.cluster;
+
+import static java.util.Objects.nonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.HeapEstimator;
+import com.example.prime.core.IntList;
+import com.example.prime.core.StreamingPrimeSupplier;
+
+/**
+ * Calculates primes by splitting the range [2,upperBound] into windows and
+ * asking peer instances of the application for the primes in each window.
+ *
+ * Windows are assigned to the peers in turn and requested a few at a time,
+ * then passed on in ascending order, so only the windows in flight are held
+ * in memory. A window that fails is retried on the next
+ * peer, and a window that is slow to arrive is requested from the next peer
+ * as well (a hedged request), using whichever answer arrives first. Every
+ * window is requested at most maxAttempts times.
+ */
+public class DistributedSieve implements StreamingPrimeSupplier, HeapEstimator {
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(DistributedSieve.class);
+
+    private final List<String> peers;
+    private final PeerClient client;
+    private final ExecutorService executorService;
+    private final int windowSize;
+    private final int maxAttempts;
+    private final int concurrency;
+    private final long hedgeDelayMillis;
+
+    /**
+     * Construct a new {@link DistributedSieve}
+     *
+     * @param configuration    the peers and how to use them
+     * @param client           requests windows from the peers
+     * @param executorService  runs the requests. Requests block waiting for
+     *                         the peers, so this must not be the pool that
+     *                         does the sieving.
+     */
+    public DistributedSieve(
+            final ClusterConfiguration configuration,
+            final PeerClient client,
+            final ExecutorService executorService) {
+
+        nonNull(configuration);
+        nonNull(client);
+        nonNull(executorService);
+
+        if ( configuration.getPeers().isEmpty() ) {
+            throw new IllegalArgumentException("At least one peer is required");
+        }
+
+        this.peers = new ArrayList<>(configuration.getPeers());
+        this.client = client;
+        this.executorService = executorService;
+        this.windowSize = configuration.getWindowSize();
+        this.maxAttempts = configuration.getMaxAttempts();
+        this.concurrency = configuration.getConcurrency();
+        this.hedgeDelayMillis = configuration.getHedgeDelay().toMilliseconds();
+    }
+
+    @Override
+    public List<Integer> primesUpTo(final int upperBound)
+            throws CalculationException {
+
+        if ( upperBound <= 1 ) {
+            throw new IllegalArgumentException("There are no primes below 2");
+        }
+
+        final int[] primes =
+                new int[(int) HeapEstimator.primeCountUpperBound(upperBound)];
+        final int[] count = new int[1];
+
+        stream(upperBound, prime -> primes[count[0]++] = prime);
+
+        return new IntList(primes, count[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only the windows being requested are held in memory, so the range isn't
+     * limited by the heap of this instance.
+     */
+    @Override
+    public void stream(final int upperBound, final IntConsumer consumer)
+            throws CalculationException {
+
+        if ( upperBound <= 1 ) {
+            throw new IllegalArgumentException("There are no primes below 2");
+        }
+
+        final int windowCount =
+                (int) ((upperBound - 2L) / windowSize + 1);
+
+        // Request a few windows at a time and pass each one on as soon as the
+        // windows below it have been
+        for ( int first = 0; first < windowCount; first += concurrency ) {
+            final int last = Math.min(first + concurrency, windowCount);
+
+            final List<Future<IntList>> windows = new ArrayList<>(last - first);
+            for ( int window = first; window < last; window++ ) {
+                final int index = window;
+                final int from = (int) (2L + (long) index * windowSize);
+                final int to = (int) Math.min(
+                                        (long) from + windowSize - 1,
+                                        upperBound);
+
+                windows.add(
+                    executorService.submit(
+                            () -> fetchWindow(index, from, to)));
+            }
+
+            try {
+                for ( final Future<IntList> window : windows ) {
+                    window.get().forEachInt(consumer);
+                }
+            }
+            catch ( final InterruptedException ex ) {
+                Thread.currentThread().interrupt();
+                throw new CalculationException(ex);
+            }
+            catch ( final ExecutionException ex ) {
+                throw new CalculationException(ex.getCause());
+            }
+            finally {
+                windows.forEach(window -> window.cancel(true));
+            }
+        }
+    }
+
+    @Override
+    public long estimateHeapBytes(final int upperBound) {
+        // the result is a single int[] sized for the most primes there could
+        // be, plus the windows being requested
+        return HeapEstimator.primeCountUpperBound(upperBound) * Integer.BYTES
+                + estimateStreamingHeapBytes(upperBound);
+    }
+
+    @Override
+    public long estimateStreamingHeapBytes(final int upperBound) {
+        // each window being requested is parsed into an array that may have
+        // grown to twice the size needed
+        final long window =
+                HeapEstimator.primeCountUpperBound(
+                        Math.min(windowSize, upperBound));
+
+        return concurrency * window * Integer.BYTES * 2;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Request the primes in the range [from,to], retrying failed requests and
+     * hedging slow ones on the other peers
+     *
+     * @param window  index of the window, decides which peer is asked first
+     */
+    private IntList fetchWindow(
+            final int window,
+            final int from,
+            final int to) throws CalculationException, InterruptedException {
+
+        final CompletionService<IntList> attempts =
+                new ExecutorCompletionService<>(executorService);
+        final List<Future<IntList>> outstanding = new ArrayList<>();
+
+        int started = 0;
+        int failed = 0;
+        Throwable lastFailure = null;
+
+        try {
+            outstanding.add(attempts.submit(request(window + started++, from, to)));
+
+            while ( true ) {
+                // While another attempt is allowed, only wait for the hedge
+                // delay before sending one
+                final Future<IntList> attempt =
+                        started < maxAttempts
+                            ? attempts.poll(hedgeDelayMillis, TimeUnit.MILLISECONDS)
+                            : attempts.take();
+
+                if ( attempt == null ) {
+                    LOG.debug("Hedging window [{},{}]", from, to);
+                    outstanding.add(
+                        attempts.submit(request(window + started++, from, to)));
+                    continue;
+                }
+
+                try {
+                    return attempt.get();
+                }
+                catch ( final ExecutionException ex ) {
+                    failed++;
+                    lastFailure = ex.getCause();
+
+                    LOG.warn("Failed to fetch window [{},{}]: {}",
+                             from, to, lastFailure.getMessage());
+                }
+
+                if ( started < maxAttempts ) {
+                    outstanding.add(
+                        attempts.submit(request(window + started++, from, to)));
+                }
+                else if ( failed == started ) {
+                    throw new CalculationException(
+                            String.format(
+                                    "Failed to fetch window [%d,%d] after %d attempts",
+                                    from, to, started),
+                            lastFailure);
+                }
+            }
+        }
+        finally {
+            // Stop waiting for any slower duplicates
+            outstanding.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    /**
+     * A single request for the window to the n'th peer, wrapping around
+     */
+    private Callable<IntList> request(
+            final int n,
+            final int from,
+            final int to) {
+
+        final String peer = peers.get(n % peers.size());
+        return () -> client.primesBetween(peer, from, to);
+    }
+}
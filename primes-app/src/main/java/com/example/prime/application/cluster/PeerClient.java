@@ -0,0 +1,120 @@
+package com.example.prime.application.cluster;
+
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+
+import com.example.prime.core.IntList;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.dropwizard.util.Duration;
+
+/**
+ * Requests windows of primes from another instance of the application
+ */
+public class PeerClient {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final JsonFactory jsonFactory;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    /**
+     * Construct a new {@link PeerClient}
+     *
+     * @param jsonFactory     parses the responses
+     * @param connectTimeout  longest time to wait for a connection
+     * @param readTimeout     longest time to wait for data from a peer
+     */
+    public PeerClient(
+            final JsonFactory jsonFactory,
+            final Duration connectTimeout,
+            final Duration readTimeout) {
+
+        nonNull(jsonFactory);
+
+        this.jsonFactory = jsonFactory;
+        this.connectTimeoutMillis = (int) connectTimeout.toMilliseconds();
+        this.readTimeoutMillis = (int) readTimeout.toMilliseconds();
+    }
+
+    /**
+     * Fetch the primes in the range [from,to] from the peer
+     *
+     * @param peer  base URL of the peer, e.g. http://localhost:8080
+     *
+     * @return the primes in ascending order
+     *
+     * @throws IOException if the peer can't be reached or returns an error
+     */
+    public IntList primesBetween(
+            final String peer,
+            final int from,
+            final int to) throws IOException {
+
+        final URL url = new URL(
+                String.format("%s/primes/range?from=%d&to=%d", peer, from, to));
+
+        final HttpURLConnection connection =
+                (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+
+        final int status = connection.getResponseCode();
+        if ( status != HttpURLConnection.HTTP_OK ) {
+            // Read the error so that the connection can be reused
+            try ( final InputStream error = connection.getErrorStream() ) {
+                if ( error != null ) {
+                    while ( error.read() >= 0 ) {
+                        // discard
+                    }
+                }
+            }
+            throw new IOException(
+                    String.format("%s returned %d for [%d,%d]",
+                                  peer, status, from, to));
+        }
+
+        try ( final JsonParser parser =
+                    jsonFactory.createParser(connection.getInputStream()) ) {
+            return parsePrimes(parser);
+        }
+    }
+
+    /**
+     * Read the array of primes from a {"primes":[...]} document
+     */
+    private static IntList parsePrimes(final JsonParser parser)
+            throws IOException {
+
+        int[] primes = new int[INITIAL_CAPACITY];
+        int count = 0;
+
+        while ( parser.nextToken() != null ) {
+            if ( parser.getCurrentToken() == JsonToken.FIELD_NAME
+                    && "primes".equals(parser.getCurrentName()) ) {
+
+                if ( parser.nextToken() != JsonToken.START_ARRAY ) {
+                    throw new IOException("primes is not an array");
+                }
+
+                while ( parser.nextToken() == JsonToken.VALUE_NUMBER_INT ) {
+                    if ( count == primes.length ) {
+                        primes = Arrays.copyOf(primes, count * 2);
+                    }
+                    primes[count++] = parser.getIntValue();
+                }
+                return new IntList(primes, count);
+            }
+        }
+
+        throw new IOException("The response does not contain any primes");
+    }
+}
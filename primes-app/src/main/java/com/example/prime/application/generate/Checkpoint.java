@@ -0,0 +1,120 @@
+package com.example.prime.application.generate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * How far {@link PrimeFileGenerator} has got with a file, saved after every
+ * segment so that an interrupted run can carry on where it left off.
+ *
+ * Everything in the file before offset has been forced to disk and holds the
+ * primes in [from,next).
+ */
+final class Checkpoint {
+
+    final int from;
+    final int to;
+    final OutputFormat format;
+
+    // the first value that hasn't been written, may be to + 1
+    final long next;
+
+    // the number of bytes and primes written
+    final long offset;
+    final long primes;
+
+    Checkpoint(
+            final int from,
+            final int to,
+            final OutputFormat format,
+            final long next,
+            final long offset,
+            final long primes) {
+
+        this.from = from;
+        this.to = to;
+        this.format = format;
+        this.next = next;
+        this.offset = offset;
+        this.primes = primes;
+    }
+
+    /**
+     * Whether this checkpoint belongs to a run with the same arguments
+     */
+    boolean matches(final int from, final int to, final OutputFormat format) {
+        return this.from == from && this.to == to && this.format == format;
+    }
+
+    /**
+     * The checkpoint after writing the next segment
+     */
+    Checkpoint advance(final long next, final long bytes, final long primes) {
+        return new Checkpoint(
+                    from,
+                    to,
+                    format,
+                    next,
+                    offset + bytes,
+                    this.primes + primes);
+    }
+
+    /**
+     * Read a checkpoint
+     *
+     * @return the checkpoint, or null if the file doesn't exist
+     */
+    static Checkpoint load(final Path path) throws IOException {
+        if ( !Files.exists(path) ) {
+            return null;
+        }
+
+        final Properties properties = new Properties();
+        try ( final InputStream in = Files.newInputStream(path) ) {
+            properties.load(in);
+        }
+
+        try {
+            return new Checkpoint(
+                        Integer.parseInt(properties.getProperty("from")),
+                        Integer.parseInt(properties.getProperty("to")),
+                        OutputFormat.forLabel(properties.getProperty("format")),
+                        Long.parseLong(properties.getProperty("next")),
+                        Long.parseLong(properties.getProperty("offset")),
+                        Long.parseLong(properties.getProperty("primes")));
+        }
+        catch ( final IllegalArgumentException | NullPointerException ex ) {
+            throw new IOException(path + " is not a valid checkpoint", ex);
+        }
+    }
+
+    /**
+     * Write the checkpoint, replacing the previous one in a single step so
+     * that an interruption can't leave half a checkpoint behind
+     */
+    void save(final Path path) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty("from", Integer.toString(from));
+        properties.setProperty("to", Integer.toString(to));
+        properties.setProperty("format", format.getLabel());
+        properties.setProperty("next", Long.toString(next));
+        properties.setProperty("offset", Long.toString(offset));
+        properties.setProperty("primes", Long.toString(primes));
+
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try ( final OutputStream out = Files.newOutputStream(temporary) ) {
+            properties.store(out, "primes generate");
+        }
+
+        Files.move(
+                temporary,
+                path,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
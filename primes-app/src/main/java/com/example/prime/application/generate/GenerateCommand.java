@@ -0,0 +1,154 @@
+package com.example.prime.application.generate;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.example.prime.core.SegmentedSieve;
+
+import io.dropwizard.cli.Command;
+import io.dropwizard.setup.Bootstrap;
+import net.sourceforge.argparse4j.inf.Namespace;
+import net.sourceforge.argparse4j.inf.Subparser;
+
+/**
+ * Writes the primes in a range to a file without starting the server, e.g.
+ * {@code java -jar primes-app.jar generate --to 1000000000 --format gap
+ * --out primes.gap}
+ *
+ * The work is spread across every core by a {@link PrimeFileGenerator}, and
+ * the throughput is reported every second. An interrupted run carries on
+ * from its last checkpoint when it is run again with the same arguments.
+ */
+public class GenerateCommand extends Command {
+
+    public GenerateCommand() {
+        super("generate", "Writes the primes in a range to a file");
+    }
+
+    @Override
+    public void configure(final Subparser subparser) {
+        subparser.addArgument("--from")
+                 .type(Integer.class)
+                 .setDefault(0)
+                 .help("smallest value that may be written");
+
+        subparser.addArgument("--to")
+                 .type(Integer.class)
+                 .required(true)
+                 .help("largest value that may be written");
+
+        subparser.addArgument("--format")
+                 .choices("text", "binary", "gap")
+                 .setDefault("text")
+                 .help("text: a prime per line, binary: 4 byte big-endian ints,"
+                         + " gap: the first prime then half of each gap in a byte");
+
+        subparser.addArgument("--out")
+                 .required(true)
+                 .help("file to write");
+
+        subparser.addArgument("--threads")
+                 .type(Integer.class)
+                 .setDefault(Runtime.getRuntime().availableProcessors())
+                 .help("number of segments sieved at once, one per core by default");
+    }
+
+    @Override
+    public void run(
+            final Bootstrap<?> bootstrap,
+            final Namespace namespace) throws Exception {
+
+        final int threads = namespace.getInt("threads");
+        final Path out = Paths.get(namespace.getString("out"));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            new PrimeFileGenerator(
+                    new SegmentedSieve(executor),
+                    executor,
+                    threads,
+                    PrimeFileGenerator.DEFAULT_SEGMENT_SIZE)
+                .generate(
+                    namespace.getInt("from"),
+                    namespace.getInt("to"),
+                    OutputFormat.forLabel(namespace.getString("format")),
+                    out,
+                    new ThroughputReporter(System.out, out));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Prints the progress and throughput of the run at most once a second,
+     * and a summary at the end
+     */
+    private static final class ThroughputReporter
+            implements PrimeFileGenerator.ProgressListener {
+
+        private static final long INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+        private final PrintStream out;
+        private final Path file;
+
+        private long start;
+        private long lastReport;
+
+        // values written by an earlier run, which don't count towards the
+        // throughput
+        private long resumed;
+
+        ThroughputReporter(final PrintStream out, final Path file) {
+            this.out = out;
+            this.file = file;
+        }
+
+        @Override
+        public void started(final long done, final long total) {
+            start = System.nanoTime();
+            lastReport = start;
+            resumed = done;
+
+            if ( done > 0 ) {
+                out.printf("Resuming %s at %.1f%%%n", file, percent(done, total));
+            }
+        }
+
+        @Override
+        public void segmentWritten(
+                final long done,
+                final long total,
+                final long primes,
+                final long bytes) {
+
+            final long now = System.nanoTime();
+            if ( done < total && now - lastReport < INTERVAL ) {
+                return;
+            }
+            lastReport = now;
+
+            final double seconds = Math.max(now - start, 1) / 1e9;
+            final double valuesPerSecond = (done - resumed) / seconds;
+
+            out.printf(
+                    "%5.1f%% %,d primes, %,d bytes, %,.0f values/s%s%n",
+                    percent(done, total),
+                    primes,
+                    bytes,
+                    valuesPerSecond,
+                    done < total
+                        ? String.format(", %.0fs left",
+                                        (total - done) / valuesPerSecond)
+                        : String.format(" in %.1fs to %s", seconds, file));
+        }
+
+        private static double percent(final long done, final long total) {
+            return 100.0 * done / total;
+        }
+    }
+}
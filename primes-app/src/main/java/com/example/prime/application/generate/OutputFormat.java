@@ -0,0 +1,137 @@
+package com.example.prime.application.generate;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import com.example.prime.core.DecimalDigits;
+import com.example.prime.core.IntList;
+
+/**
+ * The formats that {@link PrimeFileGenerator} can write the primes in
+ */
+public enum OutputFormat {
+
+    /** Each prime in decimal on a line of its own */
+    TEXT("text") {
+        @Override
+        int maxBytes(final int primes) {
+            return (DecimalDigits.MAX_DIGITS + 1) * primes;
+        }
+
+        @Override
+        void encode(
+                final IntList primes,
+                final int start,
+                final int previous,
+                final ByteBuffer buffer) {
+
+            final byte[] bytes = buffer.array();
+            int position = buffer.position();
+            for ( int i = start; i < primes.size(); i++ ) {
+                position = DecimalDigits.format(primes.getInt(i), bytes, position);
+                bytes[position++] = '\n';
+            }
+            // Buffer.position(int), ByteBuffer's override doesn't exist on Java 8
+            ((Buffer) buffer).position(position);
+        }
+    },
+
+    /** Each prime as a 4 byte big-endian int, as read by DataInputStream */
+    BINARY("binary") {
+        @Override
+        int maxBytes(final int primes) {
+            return 4 * primes;
+        }
+
+        @Override
+        void encode(
+                final IntList primes,
+                final int start,
+                final int previous,
+                final ByteBuffer buffer) {
+
+            for ( int i = start; i < primes.size(); i++ ) {
+                buffer.putInt(primes.getInt(i));
+            }
+        }
+    },
+
+    /**
+     * The first prime as a 4 byte big-endian int, then a byte for each of the
+     * others holding half its gap from the one before. Every gap below 2^31
+     * is even and at most 292, except the gap of 1 from 2 to 3 which is
+     * written as 0.
+     */
+    GAP("gap") {
+        @Override
+        int maxBytes(final int primes) {
+            return 4 + primes;
+        }
+
+        @Override
+        void encode(
+                final IntList primes,
+                final int start,
+                final int previous,
+                final ByteBuffer buffer) {
+
+            int last = previous;
+            for ( int i = start; i < primes.size(); i++ ) {
+                final int prime = primes.getInt(i);
+                if ( last == 0 ) {
+                    buffer.putInt(prime);
+                }
+                else {
+                    buffer.put((byte) ((prime - last) >>> 1));
+                }
+                last = prime;
+            }
+        }
+    };
+
+    private final String label;
+
+    private OutputFormat(final String label) {
+        this.label = label;
+    }
+
+    /**
+     * Find the format with the given label
+     *
+     * @throws IllegalArgumentException if there is no such format
+     */
+    public static OutputFormat forLabel(final String label) {
+        for ( final OutputFormat format : values() ) {
+            if ( format.label.equals(label) ) {
+                return format;
+            }
+        }
+
+        throw new IllegalArgumentException(
+                label + " is not a supported format");
+    }
+
+    /**
+     * Name used to identify the format on the command line
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * The most bytes needed to encode some primes
+     */
+    abstract int maxBytes(int primes);
+
+    /**
+     * Encode the primes from index start onwards into the buffer
+     *
+     * @param previous  the prime written before them, or 0 if they are the
+     *                  first in the file
+     */
+    abstract void encode(
+            IntList primes,
+            int start,
+            int previous,
+            ByteBuffer buffer);
+}
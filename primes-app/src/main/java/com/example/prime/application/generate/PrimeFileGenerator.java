@@ -0,0 +1,296 @@
+package com.example.prime.application.generate;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.nonNull;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.IntList;
+import com.example.prime.core.SegmentedSieve;
+
+/**
+ * Writes the primes in a range to a file.
+ *
+ * The range is split into segments that are sieved and encoded in parallel,
+ * a window at a time, on the executor. Each segment's bytes are then copied
+ * into a memory-mapped region of the file in ascending order, forced to
+ * disk, and recorded in a {@link Checkpoint} next to the file. If the run is
+ * interrupted, running it again with the same arguments carries on from the
+ * last checkpoint.
+ *
+ * Each segment is encoded on its own, the gap format finds the prime before
+ * the segment by sieving a few values below it.
+ */
+public class PrimeFileGenerator {
+
+    /** Default number of values in each segment, the unit of checkpoints */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 24;
+
+    // every gap between primes below 2^31 is at most 292
+    private static final int MAX_GAP = 292;
+
+    /**
+     * Receives the progress of a run
+     */
+    public interface ProgressListener {
+
+        /**
+         * The run has started
+         *
+         * @param done   values already written by an earlier run
+         * @param total  values in the range
+         */
+        default void started(final long done, final long total) {
+        }
+
+        /**
+         * A segment has been written and checkpointed
+         *
+         * @param done    values written so far
+         * @param total   values in the range
+         * @param primes  primes written so far
+         * @param bytes   bytes written so far
+         */
+        void segmentWritten(long done, long total, long primes, long bytes);
+    }
+
+    private final SegmentedSieve sieve;
+    private final ExecutorService executor;
+
+    // number of segments sieved at once
+    private final int window;
+
+    private final int segmentSize;
+
+    /**
+     * Construct a new {@link PrimeFileGenerator}
+     *
+     * @param sieve        sieves each segment
+     * @param executor     service that sieves and encodes the segments
+     * @param window       number of segments sieved at once
+     * @param segmentSize  number of values in each segment
+     */
+    public PrimeFileGenerator(
+            final SegmentedSieve sieve,
+            final ExecutorService executor,
+            final int window,
+            final int segmentSize) {
+
+        nonNull(sieve);
+        nonNull(executor);
+
+        if ( window < 1 ) {
+            throw new IllegalArgumentException("The window must be at least 1");
+        }
+        if ( segmentSize < 1 ) {
+            throw new IllegalArgumentException(
+                    "The segment size must be at least 1");
+        }
+
+        this.sieve = sieve;
+        this.executor = executor;
+        this.window = window;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * The file that holds the checkpoint of a run writing to out
+     */
+    public static Path checkpointFor(final Path out) {
+        return out.resolveSibling(out.getFileName() + ".checkpoint");
+    }
+
+    /**
+     * Write the primes in [from,to] to out, carrying on from the checkpoint
+     * of an earlier run with the same arguments if there is one. The
+     * checkpoint is deleted once the file is complete.
+     *
+     * @throws IllegalArgumentException if the range is invalid or there is a
+     *         checkpoint for a run with different arguments
+     * @throws IOException if the file or checkpoint can't be written, or
+     *         the file is shorter than its checkpoint
+     * @throws CalculationException if the primes can't be calculated
+     */
+    public void generate(
+            final int from,
+            final int to,
+            final OutputFormat format,
+            final Path out,
+            final ProgressListener listener) throws IOException, CalculationException {
+
+        nonNull(format);
+        nonNull(listener);
+
+        if ( from < 0 ) {
+            throw new IllegalArgumentException("from must not be negative");
+        }
+        if ( from > to ) {
+            throw new IllegalArgumentException(
+                    "from must not be greater than to");
+        }
+
+        final Path checkpointPath = checkpointFor(out);
+        Checkpoint checkpoint = Checkpoint.load(checkpointPath);
+        if ( checkpoint == null ) {
+            checkpoint = new Checkpoint(from, to, format, from, 0, 0);
+        }
+        else if ( !checkpoint.matches(from, to, format) ) {
+            throw new IllegalArgumentException(
+                    checkpointPath + " belongs to a run with different"
+                        + " arguments, delete it to start again");
+        }
+
+        final long total = to - (long) from + 1;
+        listener.started(checkpoint.next - from, total);
+
+        try ( final FileChannel channel =
+                    FileChannel.open(out, CREATE, READ, WRITE) ) {
+
+            // The file must hold everything the checkpoint says was written,
+            // otherwise carrying on would leave a hole of zeros in it
+            if ( channel.size() < checkpoint.offset ) {
+                throw new IOException(
+                        out + " is shorter than its checkpoint says, delete "
+                            + checkpointPath + " to start again");
+            }
+
+            // Throw away anything written after the last checkpoint
+            channel.truncate(checkpoint.offset);
+
+            final long windowValues = (long) window * segmentSize;
+            for ( long first = checkpoint.next; first <= to; first += windowValues ) {
+                final List<Callable<Segment>> encodings = new ArrayList<>(window);
+
+                for ( long low = first;
+                      low <= to && low < first + windowValues;
+                      low += segmentSize ) {
+
+                    final int lowerBound = (int) low;
+                    final int upperBound = (int) Math.min(to, low + segmentSize - 1);
+                    encodings.add(
+                        () -> encode(from, lowerBound, upperBound, format));
+                }
+
+                for ( final Future<Segment> encoding : invokeAll(encodings) ) {
+                    final Segment segment;
+                    try {
+                        segment = encoding.get();
+                    }
+                    catch ( final InterruptedException | ExecutionException ex ) {
+                        throw new CalculationException(ex);
+                    }
+
+                    write(channel, checkpoint.offset, segment.bytes);
+
+                    checkpoint = checkpoint.advance(
+                                    segment.upperBound + 1L,
+                                    segment.bytes.remaining(),
+                                    segment.primes);
+                    checkpoint.save(checkpointPath);
+
+                    listener.segmentWritten(
+                            checkpoint.next - from,
+                            total,
+                            checkpoint.primes,
+                            checkpoint.offset);
+                }
+            }
+        }
+
+        Files.delete(checkpointPath);
+    }
+
+    /**
+     * Sieve and encode the primes in [lowerBound,upperBound]
+     */
+    private Segment encode(
+            final int from,
+            final int lowerBound,
+            final int upperBound,
+            final OutputFormat format) {
+
+        // The gap format needs the prime before the segment, if it is within
+        // the range
+        final int sieveFrom =
+                format == OutputFormat.GAP
+                    ? Math.max(from, lowerBound - MAX_GAP)
+                    : lowerBound;
+
+        final IntList primes = sieve.seiveSegment(sieveFrom, upperBound);
+
+        int start = 0;
+        int previous = 0;
+        while ( start < primes.size() && primes.getInt(start) < lowerBound ) {
+            previous = primes.getInt(start++);
+        }
+
+        final ByteBuffer bytes =
+                ByteBuffer.allocate(format.maxBytes(primes.size() - start));
+        format.encode(primes, start, previous, bytes);
+        ((Buffer) bytes).flip();
+
+        return new Segment(upperBound, bytes, primes.size() - start);
+    }
+
+    private List<Future<Segment>> invokeAll(
+            final List<Callable<Segment>> encodings) throws CalculationException {
+
+        try {
+            return executor.invokeAll(encodings);
+        }
+        catch ( final InterruptedException ex ) {
+            throw new CalculationException(ex);
+        }
+    }
+
+    /**
+     * Copy the bytes into the file at offset through a memory-mapped region,
+     * and force them to disk before the checkpoint records them
+     */
+    private static void write(
+            final FileChannel channel,
+            final long offset,
+            final ByteBuffer bytes) throws IOException {
+
+        if ( !bytes.hasRemaining() ) {
+            return;
+        }
+
+        final MappedByteBuffer region =
+                channel.map(MapMode.READ_WRITE, offset, bytes.remaining());
+        region.put(bytes.duplicate());
+        region.force();
+    }
+
+    /**
+     * The encoded primes of a segment
+     */
+    private static final class Segment {
+
+        final int upperBound;
+        final ByteBuffer bytes;
+        final int primes;
+
+        Segment(final int upperBound, final ByteBuffer bytes, final int primes) {
+            this.upperBound = upperBound;
+            this.bytes = bytes;
+            this.primes = primes;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.prime.application.recording;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Planning and running the calculation behind a '/primes' request. A
+ * streamed calculation only starts once the response is serialized, so its
+ * time is recorded by the {@link SerializationEvent} instead.
+ */
+@Name("com.example.prime.Calculation")
+@Label("Prime Calculation")
+@Category({ "Primes", "Request" })
+@Description("Planning and calculating the primes for a request")
+@StackTrace(false)
+public final class CalculationEvent extends jdk.jfr.Event {
+
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Upper Bound")
+    public int upto;
+
+    @Label("Primes")
+    @Description("Number of primes calculated, 0 if they are streamed")
+    public int primes;
+
+    @Label("Streamed")
+    @Description("Whether the primes are streamed into the response")
+    public boolean streamed;
+}
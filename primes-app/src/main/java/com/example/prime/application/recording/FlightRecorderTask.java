@@ -0,0 +1,132 @@
+package com.example.prime.application.recording;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+
+import com.google.common.collect.ImmutableMultimap;
+
+import io.dropwizard.servlets.tasks.Task;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Controls a Flight Recorder recording from the admin port, e.g.
+ * <ul>
+ * <li> {@code POST /tasks/jfr?action=start&settings=profile}
+ * <li> {@code POST /tasks/jfr?action=dump&file=/tmp/primes.jfr}
+ * <li> {@code POST /tasks/jfr?action=stop&file=/tmp/primes.jfr}
+ * </ul>
+ *
+ * 'settings' is the name of one of the JVM's configurations, 'default' if
+ * not specified, which records the application's events along with the
+ * JVM's. Stopping only dumps the recording if a file is given. There is at
+ * most one recording at a time.
+ *
+ * Only register this if {@link
+ * com.example.prime.core.FlightRecorderEvents#AVAILABLE} is true.
+ */
+public class FlightRecorderTask extends Task {
+
+    // the current recording, or null if there isn't one
+    private Recording recording;
+
+    public FlightRecorderTask() {
+        super("jfr");
+    }
+
+    @Override
+    public synchronized void execute(
+            final ImmutableMultimap<String, String> parameters,
+            final PrintWriter output) throws Exception {
+
+        final String action = parameter(parameters, "action", "");
+
+        switch ( action ) {
+            case "start":
+                if ( recording != null ) {
+                    output.println("Already recording, stop the recording first");
+                    return;
+                }
+
+                recording = start(parameter(parameters, "settings", "default"));
+                output.println("Started recording " + recording.getId());
+                return;
+
+            case "dump":
+                if ( recording == null ) {
+                    output.println("Not recording");
+                    return;
+                }
+
+                output.println("Dumped recording to "
+                                + dump(parameter(parameters, "file", null)));
+                return;
+
+            case "stop":
+                if ( recording == null ) {
+                    output.println("Not recording");
+                    return;
+                }
+
+                final String file = parameter(parameters, "file", null);
+                try {
+                    recording.stop();
+                    if ( file != null ) {
+                        output.println("Dumped recording to " + dump(file));
+                    }
+                }
+                finally {
+                    recording.close();
+                    recording = null;
+                }
+                output.println("Stopped recording");
+                return;
+
+            default:
+                output.println("action must be one of start, dump or stop");
+        }
+    }
+
+    private static Recording start(final String settings) throws Exception {
+        final Recording started;
+        try {
+            started = new Recording(Configuration.getConfiguration(settings));
+        }
+        catch ( final IOException | ParseException ex ) {
+            throw new IllegalArgumentException(
+                    settings + " is not a valid configuration", ex);
+        }
+
+        started.setName("primes");
+        started.start();
+        return started;
+    }
+
+    /**
+     * Write the recording so far into a file
+     *
+     * @param file  the file to write, a new file in the working directory
+     *              if null
+     *
+     * @return the absolute path of the file
+     */
+    private Path dump(final String file) throws Exception {
+        final Path path =
+                file != null ? Paths.get(file)
+                             : Paths.get("primes-" + System.currentTimeMillis() + ".jfr");
+
+        recording.dump(path);
+        return path.toAbsolutePath();
+    }
+
+    private static String parameter(
+            final ImmutableMultimap<String, String> parameters,
+            final String name,
+            final String defaultValue) {
+
+        return parameters.get(name).stream().findFirst().orElse(defaultValue);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.prime.application.recording;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Writing a response entity, recorded by {@link SerializationInterceptor}
+ */
+@Name("com.example.prime.Serialization")
+@Label("Response Serialization")
+@Category({ "Primes", "Request" })
+@Description("Serializing a response entity into the response body")
+@StackTrace(false)
+public final class SerializationEvent extends jdk.jfr.Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Query")
+    public String query;
+
+    @Label("Entity")
+    @Description("Class of the entity that was serialized")
+    public String entity;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,57 @@
+package com.example.prime.application.recording;
+
+import java.io.IOException;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Records a {@link SerializationEvent} around the serialization of every
+ * response entity, counting the bytes written.
+ *
+ * Only register this if {@link
+ * com.example.prime.core.FlightRecorderEvents#AVAILABLE} is true.
+ */
+public class SerializationInterceptor implements WriterInterceptor {
+
+    @Context
+    private UriInfo uriInfo;
+
+    @Override
+    public void aroundWriteTo(final WriterInterceptorContext context)
+            throws IOException, WebApplicationException {
+
+        final SerializationEvent event = new SerializationEvent();
+
+        // Don't count the bytes unless something is recording
+        if ( !event.isEnabled() ) {
+            context.proceed();
+            return;
+        }
+
+        final CountingOutputStream counter =
+                new CountingOutputStream(context.getOutputStream());
+        context.setOutputStream(counter);
+
+        event.begin();
+        try {
+            context.proceed();
+        }
+        finally {
+            event.end();
+
+            if ( event.shouldCommit() ) {
+                event.path = uriInfo.getPath();
+                event.query = uriInfo.getRequestUri().getRawQuery();
+                event.entity = context.getType().getSimpleName();
+                event.bytes = counter.getCount();
+                event.commit();
+            }
+        }
+    }
+}
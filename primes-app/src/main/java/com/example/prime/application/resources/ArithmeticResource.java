@@ -0,0 +1,89 @@
+package com.example.prime.application.resources;
+
+import static java.util.Objects.nonNull;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+
+import com.codahale.metrics.annotation.Timed;
+import com.example.prime.api.ArithmeticResults;
+import com.example.prime.core.ArithmeticFunction;
+import com.example.prime.core.ArithmeticSieve;
+import com.google.common.base.Optional;
+
+/**
+ * Exposes arithmetic functions and factorizations over ranges of values as a
+ * REST resource. The range is factorized segment by segment while the
+ * response is written, so its size is only limited by the client's patience.
+ */
+@Path("/arithmetic/{function}")
+@Produces(MediaType.APPLICATION_JSON)
+public class ArithmeticResource {
+
+    private final ArithmeticSieve sieve;
+
+    /**
+     * Construct a new {@link ArithmeticResource}
+     *
+     * @param sieve  factorizes the segments of each range
+     */
+    public ArithmeticResource(final ArithmeticSieve sieve) {
+        nonNull(sieve);
+
+        this.sieve = sieve;
+    }
+
+    /**
+     * Calculate a function of every value in the range [from,to]
+     *
+     * @param function  the label of an {@link ArithmeticFunction}, or
+     *                  'factors' for the factorizations
+     * @param from      smallest value, at least 1
+     * @param to        largest value
+     */
+    @GET
+    @Timed
+    public ArithmeticResults calculate(
+            @PathParam("function") final String function,
+            @QueryParam("from") final Optional<Integer> from,
+            @QueryParam("to") final Optional<Integer> to) {
+
+        if ( !from.isPresent() || !to.isPresent() ) {
+            throw new WebApplicationException(
+                            "from and to are required",
+                            BAD_REQUEST);
+        }
+
+        final int lower = from.get();
+        final int upper = to.get();
+
+        // Validate everything up front, the response will have started by
+        // the time the range is factorized
+        try {
+            ArithmeticSieve.checkRange(lower, upper);
+
+            final ArithmeticResults.SegmentSource source =
+                    consumer -> sieve.forEachSegment(lower, upper, consumer);
+
+            return ArithmeticResults.FACTORS.equals(function)
+                    ? ArithmeticResults.ofFactors(lower, upper, source)
+                    : ArithmeticResults.ofFunction(
+                            ArithmeticFunction.forLabel(function),
+                            lower,
+                            upper,
+                            source);
+        }
+        catch ( final IllegalArgumentException ex ) {
+            throw new WebApplicationException(
+                            ex.getMessage(),
+                            ex,
+                            BAD_REQUEST);
+        }
+    }
+}
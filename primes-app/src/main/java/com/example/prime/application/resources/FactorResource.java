@@ -0,0 +1,179 @@
+package com.example.prime.application.resources;
+
+import static java.util.Objects.nonNull;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+
+import com.codahale.metrics.annotation.Timed;
+import com.example.prime.api.FactorBatchRequest;
+import com.example.prime.api.FactorBatchResults;
+import com.example.prime.api.FactorResults;
+import com.example.prime.core.Factorizer;
+import com.google.common.base.Optional;
+
+import io.dropwizard.jersey.errors.ErrorMessage;
+
+/**
+ * Exposes integer factorization as a REST resource
+ */
+@Path("/factor")
+@Produces(MediaType.APPLICATION_JSON)
+public class FactorResource {
+
+    private final Factorizer factorizer;
+
+    // runs the factorizations in a batch
+    private final ExecutorService executor;
+
+    // number of pieces a batch is split into
+    private final int parallelism;
+
+    /**
+     * Construct a new {@link FactorResource}
+     *
+     * @param factorizer   thread-safe {@link Factorizer}
+     * @param executor     service that factorizes the numbers in a batch
+     * @param parallelism  number of tasks to split each batch into
+     */
+    public FactorResource(
+            final Factorizer factorizer,
+            final ExecutorService executor,
+            final int parallelism) {
+
+        nonNull(factorizer);
+        nonNull(executor);
+
+        this.factorizer = factorizer;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Find the prime factors of a single number
+     *
+     * @param n  the number to factorize
+     */
+    @GET
+    @Timed
+    public FactorResults factor(@QueryParam("n") final Optional<Long> n) {
+        if ( !n.isPresent() ) {
+            throw new WebApplicationException("n is required", BAD_REQUEST);
+        }
+
+        try {
+            return new FactorResults(n.get(), factorizer.factor(n.get()));
+        }
+        catch ( final IllegalArgumentException ex ) {
+            throw new WebApplicationException(
+                            ex.getMessage(),
+                            ex,
+                            BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Find the prime factors of each number in a batch. The batch is split
+     * into contiguous pieces that are factorized in parallel.
+     *
+     * Numbers that cannot be factorized are answered with an error and do not
+     * prevent the rest of the batch from being answered.
+     *
+     * @param request  the numbers to factorize
+     *
+     * @return one result per number, in the same order as the numbers
+     */
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Timed
+    public FactorBatchResults factorBatch(final FactorBatchRequest request) {
+
+        if ( request == null
+                || request.getNumbers() == null
+                || request.getNumbers().isEmpty() ) {
+
+            throw new WebApplicationException(
+                            "The batch must contain at least one number",
+                            BAD_REQUEST);
+        }
+
+        final List<Long> numbers = request.getNumbers();
+        final int pieceSize =
+                (numbers.size() + parallelism - 1) / parallelism;
+
+        final List<Callable<List<FactorResults>>> pieces = new ArrayList<>();
+        for ( int from = 0; from < numbers.size(); from += pieceSize ) {
+            final List<Long> piece =
+                    numbers.subList(
+                            from,
+                            Math.min(numbers.size(), from + pieceSize));
+
+            pieces.add( () -> factorAll(piece) );
+        }
+
+        try {
+            final List<FactorResults> results =
+                    new ArrayList<>(numbers.size());
+
+            for ( final Future<List<FactorResults>> piece
+                        : executor.invokeAll(pieces) ) {
+                results.addAll(piece.get());
+            }
+
+            return new FactorBatchResults(results);
+        }
+        catch ( final InterruptedException | ExecutionException ex ) {
+            // Unexpected failure, don't expose the details
+            throw new WebApplicationException(
+                            ex,
+                            INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Factorize each of the numbers, recording an error for invalid numbers
+     */
+    private List<FactorResults> factorAll(final List<Long> numbers) {
+        final List<FactorResults> results = new ArrayList<>(numbers.size());
+
+        for ( final Long n : numbers ) {
+            if ( n == null ) {
+                results.add(new FactorResults(
+                        0,
+                        new ErrorMessage(
+                                BAD_REQUEST.getStatusCode(),
+                                "null is not a number")));
+                continue;
+            }
+
+            try {
+                results.add(new FactorResults(n, factorizer.factor(n)));
+            }
+            catch ( final IllegalArgumentException ex ) {
+                results.add(new FactorResults(
+                        n,
+                        new ErrorMessage(
+                                BAD_REQUEST.getStatusCode(),
+                                ex.getMessage())));
+            }
+        }
+
+        return results;
+    }
+}
@@ -4,11 +4,18 @@ import static java.lang.String.format;
 import static java.util.Objects.nonNull;
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+import static javax.ws.rs.core.Response.Status.REQUEST_ENTITY_TOO_LARGE;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
@@ -16,9 +23,20 @@ import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 
 import com.codahale.metrics.annotation.Timed;
+import com.example.prime.api.BatchQuery;
+import com.example.prime.api.BatchRequest;
+import com.example.prime.api.BatchResults;
+import com.example.prime.api.IndexResults;
+import com.example.prime.api.PrimeSequence;
 import com.example.prime.api.PrimesResults;
+import com.example.prime.api.StreamingPrimesResults;
+import com.example.prime.application.ExecutionPlanner;
+import com.example.prime.application.recording.CalculationEvent;
 import com.example.prime.core.CalculationException;
+import com.example.prime.core.FlightRecorderEvents;
+import com.example.prime.core.PrimeBitmap;
 import com.example.prime.core.PrimeSupplier;
+import com.example.prime.core.RankSelectIndex;
 import com.google.common.base.Optional;
 
 /**
@@ -35,8 +53,16 @@ public class PrimesResource {
     private final int defaultBounds;
     private final String defaultAlgorithm;
 
+    // protects the JVM from calculations that won't fit into the heap
+    private final ExecutionPlanner planner;
+
+    // the precomputed primes that count, nth, next and prev are answered
+    // from, or null until they have been calculated
+    private final Supplier<PrimeBitmap> precomputed;
+
     /**
-     * Construct a new {@link PrimesResource}
+     * Construct a new {@link PrimesResource} that runs every calculation
+     * as requested, regardless of how much memory it needs
      *
      * @param primeSupplierFactory
      *          function that provides a thread-safe {@link PrimeSupplier} or
@@ -51,9 +77,70 @@ public class PrimesResource {
             final int defaultBounds,
             final String defaultAlgorithm) {
 
+        this(primeSupplierFactory,
+             defaultBounds,
+             defaultAlgorithm,
+             ExecutionPlanner.unlimited(),
+             () -> null);
+    }
+
+    /**
+     * Construct a new {@link PrimesResource} without any precomputed primes,
+     * so queries of the index are always unavailable
+     *
+     * @param primeSupplierFactory
+     *          function that provides a thread-safe {@link PrimeSupplier} or
+     *          null when given an algorithm name
+     * @param defaultBounds
+     *          max value that can appear in the list of primes if not specified
+     * @param defaultAlgorithm
+     *          calculation type to use if not specified
+     * @param planner
+     *          decides whether a calculation can safely be run
+     */
+    public PrimesResource(
+            final Function<String,PrimeSupplier> primeSupplierFactory,
+            final int defaultBounds,
+            final String defaultAlgorithm,
+            final ExecutionPlanner planner) {
+
+        this(primeSupplierFactory,
+             defaultBounds,
+             defaultAlgorithm,
+             planner,
+             () -> null);
+    }
+
+    /**
+     * Construct a new {@link PrimesResource}
+     *
+     * @param primeSupplierFactory
+     *          function that provides a thread-safe {@link PrimeSupplier} or
+     *          null when given an algorithm name
+     * @param defaultBounds
+     *          max value that can appear in the list of primes if not specified
+     * @param defaultAlgorithm
+     *          calculation type to use if not specified
+     * @param planner
+     *          decides whether a calculation can safely be run
+     * @param precomputed
+     *          provides the precomputed primes, or null if they aren't ready
+     */
+    public PrimesResource(
+            final Function<String,PrimeSupplier> primeSupplierFactory,
+            final int defaultBounds,
+            final String defaultAlgorithm,
+            final ExecutionPlanner planner,
+            final Supplier<PrimeBitmap> precomputed) {
+
+        nonNull(planner);
+        nonNull(precomputed);
+
         this.primeSupplierFactory = primeSupplierFactory;
         this.defaultBounds = defaultBounds;
         this.defaultAlgorithm = defaultAlgorithm;
+        this.planner = planner;
+        this.precomputed = precomputed;
     }
 
     /**
@@ -66,7 +153,7 @@ public class PrimesResource {
      */
     @GET
     @Timed
-    public PrimesResults calculatePrimes(
+    public PrimeSequence calculatePrimes(
             @QueryParam("upto") final Optional<Integer> upperBounds,
             @QueryParam("algorithm") final Optional<String> algorithm) {
 
@@ -112,14 +199,250 @@ public class PrimesResource {
      * @throws IllegalArgumentException if the specified algorithm doesn't exist
      * @throws NullPointerException if any argument is null
      */
-    private PrimesResults calculatePrimes(
+    private PrimeSequence calculatePrimes(
             final Integer upperBounds,
             final String algorithm) throws CalculationException {
 
         nonNull(upperBounds);
         nonNull(algorithm);
 
-        // Get the implementation of the requested algorithm
+        final CalculationEvent event =
+                FlightRecorderEvents.AVAILABLE ? new CalculationEvent() : null;
+        if ( event != null ) {
+            event.begin();
+        }
+
+        final PrimeSupplier primeSupplier = primeSupplierFor(algorithm);
+
+        // Stream the primes if the whole list won't fit into memory
+        if ( plan(primeSupplier, upperBounds, true)
+                == ExecutionPlanner.Decision.STREAM ) {
+
+            record(event, algorithm, upperBounds, 0, true);
+            return new StreamingPrimesResults(
+                    consumer -> planner.stream(primeSupplier, upperBounds, consumer));
+        }
+
+        // Calculate and return the primes
+        final List<Integer> primes =
+                primesUpTo(primeSupplier, algorithm, upperBounds);
+
+        record(event, algorithm, upperBounds, primes.size(), false);
+        return new PrimesResults(primes);
+    }
+
+    /**
+     * Commit a {@link CalculationEvent}, if one was started and is being
+     * recorded
+     */
+    private static void record(
+            final CalculationEvent event,
+            final String algorithm,
+            final int upperBounds,
+            final int primes,
+            final boolean streamed) {
+
+        if ( event != null && event.shouldCommit() ) {
+            event.algorithm = algorithm;
+            event.upto = upperBounds;
+            event.primes = primes;
+            event.streamed = streamed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Answer a batch of queries from a single calculation of the primes up to
+     * the largest bound required by any of the queries.
+     *
+     * Queries that are invalid are answered with an error and do not prevent
+     * the rest of the batch from being answered.
+     *
+     * @param request  the queries and (optionally) the algorithm to use
+     *
+     * @return one result per query, in the same order as the queries
+     */
+    @POST
+    @Path("/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Timed
+    public BatchResults calculateBatch(final BatchRequest request) {
+
+        if ( request == null
+                || request.getQueries() == null
+                || request.getQueries().isEmpty() ) {
+
+            throw new WebApplicationException(
+                            "The batch must contain at least one query",
+                            BAD_REQUEST);
+        }
+
+        final String algorithm =
+                request.getAlgorithm() == null ? defaultAlgorithm
+                                               : request.getAlgorithm();
+
+        try {
+            final PrimeSupplier primeSupplier = primeSupplierFor(algorithm);
+
+            // Validate every query up front so that we know how far to sieve.
+            // A null entry marks a query that has been rejected.
+            final List<BatchQuery> queries = request.getQueries();
+            final List<BatchResults.Result> errors = new ArrayList<>();
+            int maxBound = 1;
+
+            for ( final BatchQuery query : queries ) {
+                try {
+                    maxBound = Math.max(maxBound, requiredBound(query));
+                    errors.add(null);
+                }
+                catch ( final IllegalArgumentException ex ) {
+                    errors.add(BatchResults.Result.ofError(
+                                    BAD_REQUEST.getStatusCode(),
+                                    ex.getMessage()));
+                }
+            }
+
+            // There are no primes below 2, but calculate at least that far so
+            // that the list is valid for every query
+            if ( maxBound < 2 ) {
+                maxBound = 2;
+            }
+
+            // The answers are sliced from the list, so it can't be streamed
+            plan(primeSupplier, maxBound, false);
+
+            final List<Integer> primes =
+                    primesUpTo(primeSupplier, algorithm, maxBound);
+
+            final List<BatchResults.Result> results =
+                    new ArrayList<>(queries.size());
+
+            for ( int i = 0; i < queries.size(); i++ ) {
+                results.add( errors.get(i) != null
+                                ? errors.get(i)
+                                : answer(queries.get(i), primes) );
+            }
+
+            return new BatchResults(results);
+        }
+        catch ( final IllegalArgumentException ex ) {
+            throw new WebApplicationException(
+                            ex.getMessage(),
+                            ex,
+                            BAD_REQUEST);
+        }
+        catch ( final CalculationException ex ) {
+            throw new WebApplicationException(
+                            ex,
+                            INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Count the primes up to and including upto, within the precomputed
+     * primes
+     *
+     * @param upto  largest value to count
+     */
+    @GET
+    @Path("/count")
+    @Timed
+    public IndexResults countPrimes(
+            @QueryParam("upto") final Optional<Integer> upto) {
+
+        return queryIndex(index -> {
+            final int value = required(upto.orNull(), "upto");
+            return IndexResults.ofCount(value, index.count(value));
+        });
+    }
+
+    /**
+     * Find the n'th prime, counting 2 as the first, within the precomputed
+     * primes
+     *
+     * @param n  position of the prime
+     */
+    @GET
+    @Path("/nth")
+    @Timed
+    public IndexResults nthPrime(
+            @QueryParam("n") final Optional<Integer> n) {
+
+        return queryIndex(index -> {
+            final int position = required(n.orNull(), "n");
+            return IndexResults.ofNth(position, index.nth(position));
+        });
+    }
+
+    /**
+     * Find the smallest prime larger than value, within the precomputed
+     * primes
+     */
+    @GET
+    @Path("/next")
+    @Timed
+    public IndexResults nextPrime(
+            @QueryParam("value") final Optional<Integer> value) {
+
+        return queryIndex(index -> {
+            final int from = required(value.orNull(), "value");
+            return IndexResults.ofNearest(from, index.next(from));
+        });
+    }
+
+    /**
+     * Find the largest prime smaller than value, within the precomputed
+     * primes
+     */
+    @GET
+    @Path("/prev")
+    @Timed
+    public IndexResults previousPrime(
+            @QueryParam("value") final Optional<Integer> value) {
+
+        return queryIndex(index -> {
+            final int from = required(value.orNull(), "value");
+            return IndexResults.ofNearest(from, index.previous(from));
+        });
+    }
+
+    /**
+     * Answer a query from the index of the precomputed primes
+     *
+     * @throws WebApplicationException if the primes haven't been precomputed
+     *         yet, or the query is invalid or beyond the precomputed primes
+     */
+    private IndexResults queryIndex(
+            final Function<RankSelectIndex, IndexResults> query) {
+
+        // Read once, the primes may be precomputed again under us
+        final PrimeBitmap bitmap = precomputed.get();
+
+        if ( bitmap == null ) {
+            // Will succeed once the warm-up has finished
+            throw new WebApplicationException(
+                    "The primes have not been precomputed yet, try again later",
+                    SERVICE_UNAVAILABLE);
+        }
+
+        try {
+            return query.apply(bitmap.index());
+        }
+        catch ( final IllegalArgumentException ex ) {
+            throw new WebApplicationException(
+                            ex.getMessage(),
+                            ex,
+                            BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Get the implementation of the requested algorithm
+     *
+     * @throws IllegalArgumentException if the specified algorithm doesn't exist
+     */
+    private PrimeSupplier primeSupplierFor(final String algorithm) {
+
         final PrimeSupplier primeSupplier =
                 primeSupplierFactory.apply(algorithm);
 
@@ -128,6 +451,57 @@ public class PrimesResource {
                     algorithm + " is not a supported algorithm");
         }
 
+        return primeSupplier;
+    }
+
+    /**
+     * Decide how to calculate the primes without running out of memory
+     *
+     * @return {@link ExecutionPlanner.Decision#DIRECT} or
+     *         {@link ExecutionPlanner.Decision#STREAM}, which is only returned
+     *         if allowStreaming is true
+     *
+     * @throws WebApplicationException if the calculation won't fit into
+     *         memory
+     */
+    private ExecutionPlanner.Decision plan(
+            final PrimeSupplier primeSupplier,
+            final int upperBounds,
+            final boolean allowStreaming) {
+
+        final ExecutionPlanner.Decision decision =
+                planner.plan(primeSupplier, upperBounds, allowStreaming);
+
+        switch ( decision ) {
+            case TOO_LARGE:
+                // Will never succeed, the caller shouldn't retry
+                throw new WebApplicationException(
+                        format("The primes up to %d need more memory than "
+                                + "is available", upperBounds),
+                        REQUEST_ENTITY_TOO_LARGE);
+
+            case INSUFFICIENT_MEMORY:
+                // May succeed once other requests have finished
+                throw new WebApplicationException(
+                        format("Not enough free memory to calculate the "
+                                + "primes up to %d, try again later",
+                               upperBounds),
+                        SERVICE_UNAVAILABLE);
+
+            default:
+                return decision;
+        }
+    }
+
+    /**
+     * Calculate the primes up to and including upperBounds, checking that the
+     * {@link PrimeSupplier} obeys its contract.
+     */
+    private List<Integer> primesUpTo(
+            final PrimeSupplier primeSupplier,
+            final String algorithm,
+            final int upperBounds) throws CalculationException {
+
         final List<Integer> primes =
                 primeSupplier.primesUpTo(upperBounds);
 
@@ -139,7 +513,119 @@ public class PrimesResource {
                            primeSupplier.getClass().getCanonicalName()));
         }
 
-        // Calculate and return the primes
-        return new PrimesResults(primes);
+        return primes;
+    }
+
+    /**
+     * Find the largest value that must be sieved to answer the query
+     *
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    private static int requiredBound(final BatchQuery query) {
+
+        if ( query == null || query.getQuery() == null ) {
+            throw new IllegalArgumentException("The query type is missing");
+        }
+
+        switch ( query.getQuery() ) {
+            case BatchQuery.UPTO:
+                final int upto = required(query.getUpto(), "upto");
+                if ( upto <= 1 ) {
+                    throw new IllegalArgumentException(
+                            "There are no primes below 2");
+                }
+                return upto;
+
+            case BatchQuery.RANGE:
+                return rangeEnd(query);
+
+            case BatchQuery.COUNT:
+                return query.getUpto() != null ? query.getUpto()
+                                               : rangeEnd(query);
+
+            case BatchQuery.TEST:
+                return required(query.getValue(), "value");
+
+            default:
+                throw new IllegalArgumentException(
+                        query.getQuery() + " is not a supported query");
+        }
+    }
+
+    /**
+     * Validate the 'from' and 'to' fields of a query
+     *
+     * @return the upper end of the range
+     */
+    private static int rangeEnd(final BatchQuery query) {
+        final int from = required(query.getFrom(), "from");
+        final int to = required(query.getTo(), "to");
+
+        if ( from > to ) {
+            throw new IllegalArgumentException(
+                    format("The range [%d,%d] is empty", from, to));
+        }
+
+        return to;
+    }
+
+    private static int required(final Integer value, final String name) {
+        if ( value == null ) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value;
+    }
+
+    /**
+     * Answer a validated query by slicing the shared list of primes
+     *
+     * @param query   a query that has passed {@link #requiredBound(BatchQuery)}
+     * @param primes  ascending list of every prime up to the required bound
+     */
+    private static BatchResults.Result answer(
+            final BatchQuery query,
+            final List<Integer> primes) {
+
+        switch ( query.getQuery() ) {
+            case BatchQuery.UPTO:
+                return BatchResults.Result.ofPrimes(
+                        primes.subList(0, countUpTo(primes, query.getUpto())));
+
+            case BatchQuery.RANGE:
+                return BatchResults.Result.ofPrimes(
+                        primes.subList(
+                                countBelow(primes, query.getFrom()),
+                                countUpTo(primes, query.getTo())));
+
+            case BatchQuery.COUNT:
+                return BatchResults.Result.ofCount(
+                        query.getUpto() != null
+                            ? countUpTo(primes, query.getUpto())
+                            : countUpTo(primes, query.getTo())
+                                - countBelow(primes, query.getFrom()));
+
+            default:
+                final int value = query.getValue();
+                return BatchResults.Result.ofTest(
+                        value >= 2
+                            && Collections.binarySearch(primes, value) >= 0);
+        }
+    }
+
+    /**
+     * Number of primes in the list that are less than or equal to value
+     */
+    private static int countUpTo(final List<Integer> primes, final int value) {
+        final int idx = Collections.binarySearch(primes, value);
+
+        return idx >= 0 ? idx + 1 : -(idx + 1);
+    }
+
+    /**
+     * Number of primes in the list that are strictly less than value
+     */
+    private static int countBelow(final List<Integer> primes, final int value) {
+        // There are no primes below 2, avoid underflow for very small values
+        return countUpTo(primes, Math.max(value, 2) - 1);
     }
 }
@@ -0,0 +1,84 @@
+package com.example.prime.application.resources;
+
+import static java.util.Objects.nonNull;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.REQUEST_ENTITY_TOO_LARGE;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+
+import com.codahale.metrics.annotation.Timed;
+import com.example.prime.api.PrimesResults;
+import com.example.prime.core.SegmentedSieve;
+import com.google.common.base.Optional;
+
+/**
+ * Exposes the primes in a window of values as a REST resource. This is how a
+ * coordinating instance hands a part of a large calculation to its peers.
+ */
+@Path("/primes/range")
+@Produces(MediaType.APPLICATION_JSON)
+public class RangeResource {
+
+    private final SegmentedSieve sieve;
+
+    // largest window that may be requested
+    private final int maxWindowSize;
+
+    /**
+     * Construct a new {@link RangeResource}
+     *
+     * @param sieve          sieves each window
+     * @param maxWindowSize  largest number of values in a window
+     */
+    public RangeResource(
+            final SegmentedSieve sieve,
+            final int maxWindowSize) {
+
+        nonNull(sieve);
+
+        this.sieve = sieve;
+        this.maxWindowSize = maxWindowSize;
+    }
+
+    /**
+     * Calculate the primes in the range [from,to]
+     *
+     * @param from  smallest value that may appear in the list
+     * @param to    largest value that may appear in the list
+     */
+    @GET
+    @Timed
+    public PrimesResults calculateRange(
+            @QueryParam("from") final Optional<Integer> from,
+            @QueryParam("to") final Optional<Integer> to) {
+
+        if ( !from.isPresent() || !to.isPresent() ) {
+            throw new WebApplicationException(
+                            "from and to are required",
+                            BAD_REQUEST);
+        }
+
+        final int lower = from.get();
+        final int upper = to.get();
+
+        if ( lower > upper ) {
+            throw new WebApplicationException(
+                            "from must not be greater than to",
+                            BAD_REQUEST);
+        }
+
+        if ( (long) upper - lower >= maxWindowSize ) {
+            throw new WebApplicationException(
+                            "The range may contain at most "
+                                + maxWindowSize + " values",
+                            REQUEST_ENTITY_TOO_LARGE);
+        }
+
+        return new PrimesResults(sieve.seiveSegment(lower, upper));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.prime.application.resources;
+
+import static java.util.Objects.nonNull;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+import static javax.ws.rs.core.Response.Status.REQUEST_ENTITY_TOO_LARGE;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+
+import com.codahale.metrics.annotation.Timed;
+import com.example.prime.api.StatisticsResults;
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.Constellation;
+import com.example.prime.core.PrimeStatistics;
+import com.example.prime.core.SegmentedSieve;
+import com.google.common.base.Optional;
+
+/**
+ * Exposes aggregate statistics about the primes as a REST resource. The
+ * statistics are calculated segment by segment without building a list of
+ * the primes.
+ */
+@Path("/primes/stats")
+@Produces(MediaType.APPLICATION_JSON)
+public class StatisticsResource {
+
+    public static final String COUNT = "count";
+    public static final String SUM = "sum";
+    public static final String MAX_GAP = "maxgap";
+
+    // aggregates to calculate if none are specified
+    private static final List<String> DEFAULT_AGGREGATES =
+            Arrays.asList(
+                    COUNT,
+                    SUM,
+                    MAX_GAP,
+                    Constellation.TWIN.getLabel(),
+                    Constellation.COUSIN.getLabel(),
+                    Constellation.SEXY.getLabel());
+
+    private final SegmentedSieve sieve;
+
+    // configured defaults
+    private final int defaultBounds;
+
+    // largest upto for which constellations may be listed
+    private final int maxTupleBounds;
+
+    /**
+     * Construct a new {@link StatisticsResource}
+     *
+     * @param sieve           calculates the statistics for each segment
+     * @param defaultBounds   max value that is included if not specified
+     * @param maxTupleBounds  largest upto for which constellations may be
+     *                        listed. The lists hold every occurrence, so
+     *                        unlike the aggregates they grow with upto.
+     */
+    public StatisticsResource(
+            final SegmentedSieve sieve,
+            final int defaultBounds,
+            final int maxTupleBounds) {
+
+        nonNull(sieve);
+
+        this.sieve = sieve;
+        this.defaultBounds = defaultBounds;
+        this.maxTupleBounds = maxTupleBounds;
+    }
+
+    /**
+     * Calculate statistics about the primes up to upperBounds
+     *
+     * @param upperBounds  largest value that is included in the statistics
+     * @param aggregates   the statistics to return. 'count', 'sum', 'maxgap'
+     *                     or the label of a {@link Constellation} to count
+     * @param tuples       labels of the {@link Constellation}s to list, only
+     *                     allowed up to the configured maximum bounds
+     */
+    @GET
+    @Timed
+    public StatisticsResults calculateStatistics(
+            @QueryParam("upto") final Optional<Integer> upperBounds,
+            @QueryParam("aggregate") final List<String> aggregates,
+            @QueryParam("tuples") final List<String> tuples) {
+
+        try {
+            final Set<String> selected =
+                    new LinkedHashSet<>(
+                            aggregates == null || aggregates.isEmpty()
+                                ? DEFAULT_AGGREGATES
+                                : aggregates);
+
+            // Validate the names before starting a potentially long
+            // calculation
+            final Set<Constellation> counted =
+                    EnumSet.noneOf(Constellation.class);
+            for ( final String aggregate : selected ) {
+                if ( !COUNT.equals(aggregate)
+                        && !SUM.equals(aggregate)
+                        && !MAX_GAP.equals(aggregate) ) {
+                    counted.add(Constellation.forLabel(aggregate));
+                }
+            }
+
+            final Set<Constellation> listed =
+                    EnumSet.noneOf(Constellation.class);
+            if ( tuples != null ) {
+                for ( final String tuple : tuples ) {
+                    listed.add(Constellation.forLabel(tuple));
+                }
+            }
+
+            final int upto = upperBounds.or(defaultBounds);
+
+            if ( !listed.isEmpty() && upto > maxTupleBounds ) {
+                throw new WebApplicationException(
+                                "Constellations can only be listed up to "
+                                    + maxTupleBounds,
+                                REQUEST_ENTITY_TOO_LARGE);
+            }
+
+            final PrimeStatistics stats =
+                    sieve.reduce(
+                        upto,
+                        () -> new PrimeStatistics(listed),
+                        PrimeStatistics::accept,
+                        PrimeStatistics::merge);
+
+            return toResults(upto, stats, selected, counted, listed);
+        }
+        catch ( final IllegalArgumentException ex ) {
+            throw new WebApplicationException(
+                            ex.getMessage(),
+                            ex,
+                            BAD_REQUEST);
+        }
+        catch ( final CalculationException ex ) {
+            throw new WebApplicationException(
+                            ex,
+                            INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Copy the selected statistics into a form that can be marshalled to JSON
+     */
+    private static StatisticsResults toResults(
+            final int upto,
+            final PrimeStatistics stats,
+            final Set<String> selected,
+            final Set<Constellation> counted,
+            final Set<Constellation> listed) {
+
+        final Map<String, Long> constellations = new LinkedHashMap<>();
+        for ( final Constellation constellation : counted ) {
+            constellations.put(
+                    constellation.getLabel(),
+                    stats.getConstellationCount(constellation));
+        }
+
+        final Map<String, List<Integer>> tuples = new LinkedHashMap<>();
+        for ( final Constellation constellation : listed ) {
+            tuples.put(
+                    constellation.getLabel(),
+                    stats.getConstellations(constellation));
+        }
+
+        return new StatisticsResults(
+                upto,
+                selected.contains(COUNT) ? stats.getCount() : null,
+                selected.contains(SUM) ? stats.getSum() : null,
+                selected.contains(MAX_GAP)
+                    ? new StatisticsResults.MaxGap(
+                            stats.getMaxGap(),
+                            stats.getMaxGapStart())
+                    : null,
+                constellations.isEmpty() ? null : constellations,
+                tuples.isEmpty() ? null : tuples);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.prime.application.serialization;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.function.IntConsumer;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import com.example.prime.api.PrimeSequence;
+import com.example.prime.api.PrimesResults;
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.DecimalDigits;
+
+/**
+ * Writes every {@link PrimeSequence}, such as {@link PrimesResults}, as JSON
+ * without going through Jackson.
+ *
+ * Jackson serializes the list one boxed Integer at a time through a generic
+ * serializer, which dominates the cost of a response once the primes have
+ * been calculated. This formats each int straight into a byte buffer with
+ * {@link DecimalDigits}, and writes the buffer to the response
+ * whenever it fills. Each thread reuses its buffer, so a response allocates
+ * nothing however many primes it holds.
+ *
+ * The JSON is exactly what Jackson would write, e.g. {"primes":[2,3,5,7]}.
+ * As with Jackson, if {@link
+ * com.example.prime.api.StreamingPrimesResults} fail to calculate the
+ * response is aborted part way through.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class PrimesResultsWriter implements MessageBodyWriter<PrimeSequence> {
+
+    /** Size of each thread's buffer, the most written to the response at once */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    // the most bytes written for a prime, a comma and its digits
+    private static final int MAX_PRIME_BYTES = 1 + DecimalDigits.MAX_DIGITS;
+
+    private static final byte[] START = "{\"primes\":[".getBytes(US_ASCII);
+    private static final byte[] END = "]}".getBytes(US_ASCII);
+
+    private static final ThreadLocal<byte[]> BUFFERS =
+            ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    @Override
+    public boolean isWriteable(
+            final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType) {
+
+        return PrimeSequence.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(
+            final PrimeSequence results,
+            final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType) {
+
+        // deprecated, Jersey works the length out itself
+        return -1;
+    }
+
+    @Override
+    public void writeTo(
+            final PrimeSequence results,
+            final Class<?> type,
+            final Type genericType,
+            final Annotation[] annotations,
+            final MediaType mediaType,
+            final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream out) throws IOException, WebApplicationException {
+
+        write(results, out);
+    }
+
+    /**
+     * Write the results as JSON. The stream is not flushed or closed.
+     *
+     * @throws IOException if the stream can't be written or the primes
+     *         fail to calculate
+     */
+    public void write(
+            final PrimeSequence results,
+            final OutputStream out) throws IOException {
+
+        final byte[] buffer = BUFFERS.get();
+        System.arraycopy(START, 0, buffer, 0, START.length);
+
+        final Output output = new Output(buffer, START.length, out);
+        try {
+            results.forEachPrime(output);
+        }
+        catch ( final UncheckedIOException ex ) {
+            throw ex.getCause();
+        }
+        catch ( final CalculationException ex ) {
+            throw new IOException("Failed to calculate primes", ex);
+        }
+
+        output.finish();
+    }
+
+    /**
+     * Appends each prime to the buffer, writing it to the stream whenever it
+     * is about to overflow
+     */
+    private static final class Output implements IntConsumer {
+
+        private final byte[] buffer;
+        private final OutputStream out;
+
+        private int position;
+        private boolean first = true;
+
+        Output(final byte[] buffer, final int position, final OutputStream out) {
+            this.buffer = buffer;
+            this.position = position;
+            this.out = out;
+        }
+
+        @Override
+        public void accept(final int prime) {
+            if ( position > buffer.length - MAX_PRIME_BYTES ) {
+                try {
+                    out.write(buffer, 0, position);
+                }
+                catch ( final IOException ex ) {
+                    throw new UncheckedIOException(ex);
+                }
+                position = 0;
+            }
+
+            if ( first ) {
+                first = false;
+            }
+            else {
+                buffer[position++] = ',';
+            }
+
+            if ( prime < 0 ) {
+                // never a prime, but keep the JSON valid
+                final byte[] digits = Integer.toString(prime).getBytes(US_ASCII);
+                System.arraycopy(digits, 0, buffer, position, digits.length);
+                position += digits.length;
+            }
+            else {
+                position = DecimalDigits.format(prime, buffer, position);
+            }
+        }
+
+        /**
+         * Write whatever is left in the buffer, and the end of the document
+         */
+        void finish() throws IOException {
+            if ( position > buffer.length - END.length ) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+
+            System.arraycopy(END, 0, buffer, position, END.length);
+            out.write(buffer, 0, position + END.length);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.prime.application;
+
+import static com.example.prime.application.ExecutionPlanner.Decision.DIRECT;
+import static com.example.prime.application.ExecutionPlanner.Decision.INSUFFICIENT_MEMORY;
+import static com.example.prime.application.ExecutionPlanner.Decision.STREAM;
+import static com.example.prime.application.ExecutionPlanner.Decision.TOO_LARGE;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import com.example.prime.core.EratosthenesSieve;
+import com.example.prime.core.HeapEstimator;
+import com.example.prime.core.PrimeSupplier;
+import com.example.prime.core.SegmentedSieve;
+
+/**
+ * Check that {@link ExecutionPlanner} only runs calculations that fit into the
+ * heap
+ */
+public class ExecutionPlannerTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private static final ExecutorService executor =
+            Executors.newSingleThreadExecutor();
+
+    private static final SegmentedSieve STREAMING_SIEVE =
+            new SegmentedSieve(executor, 4);
+
+    private static final PrimeSupplier ERATOSTHENES = new EratosthenesSieve();
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Small calculations run as requested
+     */
+    @Test
+    public void testDirect() {
+        assertEquals(
+                DIRECT,
+                planner(100 * MB, 1000 * MB).plan(ERATOSTHENES, 1000000, true));
+    }
+
+    /**
+     * Calculations that won't fit are streamed if the caller allows it
+     */
+    @Test
+    public void testStream() {
+        final ExecutionPlanner planner = planner(100 * MB, 10000 * MB);
+
+        assertEquals(
+                STREAM,
+                planner.plan(ERATOSTHENES, Integer.MAX_VALUE, true));
+        assertEquals(
+                INSUFFICIENT_MEMORY,
+                planner.plan(ERATOSTHENES, Integer.MAX_VALUE, false));
+    }
+
+    /**
+     * Algorithms that can stream are streamed themselves rather than being
+     * replaced by the streaming sieve
+     */
+    @Test
+    public void testStreamRequestedSupplier() throws Exception {
+        final ExecutionPlanner planner =
+                new ExecutionPlanner(null, () -> 100 * MB, () -> 10000 * MB, 1.0);
+
+        assertEquals(
+                STREAM,
+                planner.plan(STREAMING_SIEVE, Integer.MAX_VALUE, true));
+        assertEquals(
+                INSUFFICIENT_MEMORY,
+                planner.plan(ERATOSTHENES, Integer.MAX_VALUE, true));
+
+        final List<Integer> streamed = new ArrayList<>();
+        planner.stream(STREAMING_SIEVE, 100, streamed::add);
+
+        assertEquals(ERATOSTHENES.primesUpTo(100), streamed);
+    }
+
+    /**
+     * Calculations bigger than the whole heap can never succeed
+     */
+    @Test
+    public void testTooLarge() {
+        assertEquals(
+                TOO_LARGE,
+                planner(100 * MB, 1000 * MB).plan(ERATOSTHENES, Integer.MAX_VALUE / 2, false));
+        assertEquals(
+                TOO_LARGE,
+                planner(1024, 1024).plan(ERATOSTHENES, Integer.MAX_VALUE, true));
+    }
+
+    /**
+     * Suppliers that can't estimate their heap usage are always run
+     */
+    @Test
+    public void testUnknownSupplier() {
+        assertEquals(
+                DIRECT,
+                planner(0, 0).plan(i -> null, Integer.MAX_VALUE, true));
+    }
+
+    /**
+     * The list estimates track the real number of primes
+     */
+    @Test
+    public void testPrimeCountEstimate() {
+        // pi(10^9) == 50847534
+        final long estimate =
+                HeapEstimator.primeCountUpperBound(1000000000);
+
+        assertEquals(50847534, estimate, 50847534 * 0.01);
+    }
+
+    private static ExecutionPlanner planner(final long free, final long max) {
+        return new ExecutionPlanner(STREAMING_SIEVE, () -> free, () -> max, 1.0);
+    }
+}
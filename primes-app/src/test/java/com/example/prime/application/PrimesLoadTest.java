@@ -0,0 +1,436 @@
+package com.example.prime.application;
+
+import static java.lang.Integer.getInteger;
+import static java.lang.Long.getLong;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.testing.ResourceHelpers;
+import io.dropwizard.testing.junit.DropwizardAppRule;
+
+/**
+ * Drives the full HTTP stack of a running {@link PrimesApplication} with many
+ * concurrent clients and checks the latency and throughput against
+ * configurable thresholds.
+ *
+ * Only runs in the 'load-test' maven profile. Settings are read from system
+ * properties:
+ * <ul>
+ * <li> loadtest.clients   - number of concurrent clients (16)
+ * <li> loadtest.warmup    - seconds of load before measuring (5)
+ * <li> loadtest.duration  - seconds of measured load per test (20)
+ * <li> loadtest.rate      - requests per second for the open loop test (500)
+ * <li> loadtest.mix       - comma separated algorithm:upto:weight entries
+ *                           (segmented:100000:50,eratosthenes:10000:30,
+ *                            precomputed:1000000:20)
+ * <li> loadtest.maxP50Micros, loadtest.maxP99Micros, loadtest.maxP999Micros
+ *                         - latency thresholds
+ * <li> loadtest.maxErrorRate - fraction of requests that may fail
+ * <li> loadtest.minThroughput - closed loop requests per second (0)
+ * </ul>
+ *
+ * The thresholds default to the 'thresholds' section of load-test.yml,
+ * which is removed before the rest configures the application. Latency
+ * thresholds that are in neither are unlimited.
+ */
+public class PrimesLoadTest {
+
+    private static final int CLIENTS = getInteger("loadtest.clients", 16);
+    private static final long WARMUP_SECONDS = getLong("loadtest.warmup", 5);
+    private static final long DURATION_SECONDS = getLong("loadtest.duration", 20);
+    private static final int RATE = getInteger("loadtest.rate", 500);
+    private static final String MIX =
+            System.getProperty(
+                    "loadtest.mix",
+                    "segmented:100000:50,eratosthenes:10000:30,precomputed:1000000:20");
+
+    private static final ObjectMapper YAML =
+            Jackson.newObjectMapper(new YAMLFactory());
+
+    // load-test.yml, without the thresholds that only this test reads
+    private static final ObjectNode CONFIG = readConfig();
+    private static final JsonNode THRESHOLDS = CONFIG.remove("thresholds");
+
+    private static final long MAX_P50 =
+            Long.parseLong(threshold("maxP50Micros", Long.MAX_VALUE));
+    private static final long MAX_P99 =
+            Long.parseLong(threshold("maxP99Micros", Long.MAX_VALUE));
+    private static final long MAX_P999 =
+            Long.parseLong(threshold("maxP999Micros", Long.MAX_VALUE));
+    private static final double MAX_ERROR_RATE =
+            Double.parseDouble(threshold("maxErrorRate", 0));
+    private static final long MIN_THROUGHPUT = getLong("loadtest.minThroughput", 0);
+
+    // longest time the application may take to report healthy
+    private static final long READY_TIMEOUT_SECONDS = 120;
+
+    @ClassRule
+    public static final DropwizardAppRule<PrimesConfiguration> APP =
+            new DropwizardAppRule<>(
+                    PrimesApplication.class,
+                    applicationConfiguration());
+
+    private static List<Query> queries;
+    private static int totalWeight;
+    private static ExecutorService clients;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        queries = parseMix(MIX);
+        totalWeight = queries.stream().mapToInt(q -> q.weight).sum();
+        clients = Executors.newFixedThreadPool(CLIENTS);
+
+        awaitHealthy();
+    }
+
+    @AfterClass
+    public static void shutDown() {
+        clients.shutdownNow();
+    }
+
+    /**
+     * Each client sends its next request as soon as it has received the
+     * response to the previous one. Measures the maximum throughput.
+     */
+    @Test
+    public void testClosedLoop() throws Exception {
+        runClosedLoop(SECONDS.toNanos(WARMUP_SECONDS));
+
+        final Result result = runClosedLoop(SECONDS.toNanos(DURATION_SECONDS));
+        result.report("closed loop");
+
+        assertErrorRate(result);
+        assertTrue(
+                "throughput " + result.throughput() + " req/s is below "
+                    + MIN_THROUGHPUT,
+                result.throughput() >= MIN_THROUGHPUT);
+        assertLatency(result.histogram);
+    }
+
+    /**
+     * Requests are sent at a fixed rate regardless of how quickly they are
+     * answered. Latency is measured from when each request should have been
+     * sent, so a stalled server is not hidden by clients backing off
+     * (coordinated omission).
+     */
+    @Test
+    public void testOpenLoop() throws Exception {
+        runOpenLoop(SECONDS.toNanos(WARMUP_SECONDS));
+
+        final Result result = runOpenLoop(SECONDS.toNanos(DURATION_SECONDS));
+        result.report("open loop at " + RATE + " req/s");
+
+        assertErrorRate(result);
+        assertLatency(result.histogram);
+    }
+
+    private static Result runClosedLoop(final long durationNanos)
+            throws Exception {
+
+        final Recorder recorder = new Recorder(3);
+        final AtomicLong errors = new AtomicLong();
+        final long start = System.nanoTime();
+        final long end = start + durationNanos;
+
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for ( int i = 0; i < CLIENTS; i++ ) {
+            tasks.add(() -> {
+                while ( System.nanoTime() < end ) {
+                    final long sent = System.nanoTime();
+                    if ( !send(nextQuery()) ) {
+                        errors.incrementAndGet();
+                    }
+                    recorder.recordValue(NANOSECONDS.toMicros(System.nanoTime() - sent));
+                }
+                return null;
+            });
+        }
+
+        awaitAll(clients.invokeAll(tasks));
+
+        return new Result(
+                recorder.getIntervalHistogram(),
+                errors.get(),
+                System.nanoTime() - start);
+    }
+
+    private static Result runOpenLoop(final long durationNanos)
+            throws Exception {
+
+        final Recorder recorder = new Recorder(3);
+        final AtomicLong errors = new AtomicLong();
+        final long intervalNanos = SECONDS.toNanos(1) / RATE;
+        final long requests = durationNanos / intervalNanos;
+        final long start = System.nanoTime();
+
+        // Client k sends requests k, k+CLIENTS, k+2*CLIENTS... each at its
+        // scheduled time, or immediately if it has fallen behind
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for ( int i = 0; i < CLIENTS; i++ ) {
+            final int client = i;
+            tasks.add(() -> {
+                for ( long r = client; r < requests; r += CLIENTS ) {
+                    final long scheduled = start + r * intervalNanos;
+                    final long wait = scheduled - System.nanoTime();
+                    if ( wait > 0 ) {
+                        NANOSECONDS.sleep(wait);
+                    }
+                    if ( !send(nextQuery()) ) {
+                        errors.incrementAndGet();
+                    }
+                    recorder.recordValue(NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+                }
+                return null;
+            });
+        }
+
+        awaitAll(clients.invokeAll(tasks));
+
+        return new Result(
+                recorder.getIntervalHistogram(),
+                errors.get(),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Send a single request and read the whole response
+     *
+     * @return true if the request succeeded
+     */
+    private static boolean send(final Query query) {
+        try {
+            final HttpURLConnection connection =
+                    (HttpURLConnection) new URL(
+                            String.format(
+                                    "http://localhost:%d/primes?algorithm=%s&upto=%d",
+                                    APP.getLocalPort(),
+                                    query.algorithm,
+                                    query.upto))
+                        .openConnection();
+
+            final int status = connection.getResponseCode();
+
+            // Drain the body so that the connection can be reused
+            try ( final InputStream body =
+                        status < 400 ? connection.getInputStream()
+                                     : connection.getErrorStream() ) {
+                final byte[] buffer = new byte[64 * 1024];
+                while ( body != null && body.read(buffer) >= 0 ) {
+                    // discard
+                }
+            }
+
+            return status == 200;
+        }
+        catch ( final IOException ex ) {
+            return false;
+        }
+    }
+
+    /**
+     * Choose a query at random according to the weights in the mix
+     */
+    private static Query nextQuery() {
+        int choice = ThreadLocalRandom.current().nextInt(totalWeight);
+
+        for ( final Query query : queries ) {
+            choice -= query.weight;
+            if ( choice < 0 ) {
+                return query;
+            }
+        }
+        throw new IllegalStateException("weights do not add up");
+    }
+
+    /**
+     * Wait for the warm-up to finish, as a load balancer would
+     */
+    private static void awaitHealthy() throws Exception {
+        final long deadline = System.nanoTime() + SECONDS.toNanos(READY_TIMEOUT_SECONDS);
+
+        while ( System.nanoTime() < deadline ) {
+            final HttpURLConnection connection =
+                    (HttpURLConnection) new URL(
+                            "http://localhost:" + APP.getAdminPort() + "/healthcheck")
+                        .openConnection();
+
+            if ( connection.getResponseCode() == 200 ) {
+                return;
+            }
+            MILLISECONDS.sleep(250);
+        }
+
+        fail("application did not become healthy");
+    }
+
+    private static ObjectNode readConfig() {
+        try {
+            return (ObjectNode) YAML.readTree(
+                    new File(ResourceHelpers.resourceFilePath("load-test.yml")));
+        }
+        catch ( final IOException ex ) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static PrimesConfiguration applicationConfiguration() {
+        try {
+            return YAML.treeToValue(CONFIG, PrimesConfiguration.class);
+        }
+        catch ( final JsonProcessingException ex ) {
+            throw new IllegalStateException("Invalid load-test.yml", ex);
+        }
+    }
+
+    /**
+     * The system property 'loadtest.name' if it is set, otherwise the value
+     * in the thresholds section of load-test.yml, otherwise the default
+     */
+    private static String threshold(final String name, final Object otherwise) {
+        final JsonNode configured =
+                THRESHOLDS == null ? null : THRESHOLDS.get(name);
+
+        return System.getProperty(
+                    "loadtest." + name,
+                    configured == null ? String.valueOf(otherwise)
+                                       : configured.asText());
+    }
+
+    private static void assertErrorRate(final Result result) {
+        final double rate =
+                (double) result.errors / result.histogram.getTotalCount();
+
+        assertTrue(
+                String.format("error rate %.4f exceeds %.4f", rate, MAX_ERROR_RATE),
+                rate <= MAX_ERROR_RATE);
+    }
+
+    private static void assertLatency(final Histogram histogram) {
+        assertPercentile(histogram, 50.0, MAX_P50);
+        assertPercentile(histogram, 99.0, MAX_P99);
+        assertPercentile(histogram, 99.9, MAX_P999);
+    }
+
+    private static void assertPercentile(
+            final Histogram histogram,
+            final double percentile,
+            final long maxMicros) {
+
+        final long actual = histogram.getValueAtPercentile(percentile);
+
+        assertTrue(
+                String.format("p%s latency %dus exceeds %dus",
+                              percentile, actual, maxMicros),
+                actual <= maxMicros);
+    }
+
+    private static void awaitAll(final List<Future<Void>> futures)
+            throws Exception {
+
+        for ( final Future<Void> future : futures ) {
+            future.get();
+        }
+    }
+
+    private static List<Query> parseMix(final String mix) {
+        final List<Query> parsed = new ArrayList<>();
+
+        for ( final String entry : mix.split(",") ) {
+            final String[] parts = entry.trim().split(":");
+            if ( parts.length != 3 ) {
+                throw new IllegalArgumentException(
+                        "mix entries must be algorithm:upto:weight, not " + entry);
+            }
+            parsed.add(new Query(
+                    parts[0],
+                    Integer.parseInt(parts[1]),
+                    Integer.parseInt(parts[2])));
+        }
+
+        return parsed;
+    }
+
+    /**
+     * An entry in the mix of queries
+     */
+    private static final class Query {
+        private final String algorithm;
+        private final int upto;
+        private final int weight;
+
+        private Query(final String algorithm, final int upto, final int weight) {
+            this.algorithm = algorithm;
+            this.upto = upto;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Latency in microseconds and error count for a run of the load test
+     */
+    private static final class Result {
+        private final Histogram histogram;
+        private final long errors;
+        private final long elapsedNanos;
+
+        private Result(
+                final Histogram histogram,
+                final long errors,
+                final long elapsedNanos) {
+
+            this.histogram = histogram;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        private double throughput() {
+            return histogram.getTotalCount() * 1e9 / elapsedNanos;
+        }
+
+        private void report(final String name) {
+            System.out.printf(
+                    "%s: %d requests, %d errors, %.1f req/s, "
+                        + "p50=%dus p99=%dus p99.9=%dus max=%dus%n",
+                    name,
+                    histogram.getTotalCount(),
+                    errors,
+                    throughput(),
+                    histogram.getValueAtPercentile(50.0),
+                    histogram.getValueAtPercentile(99.0),
+                    histogram.getValueAtPercentile(99.9),
+                    histogram.getMaxValue());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.prime.application;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.example.prime.application.resources.PrimesResource;
+import com.example.prime.application.serialization.PrimesResultsWriter;
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.EratosthenesSieve;
+import com.example.prime.core.PrecomputedSieve;
+import com.example.prime.core.PrimeSupplier;
+
+/**
+ * Check that {@link WarmUp} only reports healthy once it has finished
+ */
+public class WarmUpTest {
+
+    private WarmUpConfiguration configuration;
+    private PrecomputedSieve precomputedSieve;
+    private PrimesResource primesResource;
+
+    @Before
+    public void setup() {
+        configuration = new WarmUpConfiguration();
+        configuration.setPrecomputeBounds(1000);
+        configuration.setBounds(100);
+        configuration.setIterations(10);
+
+        precomputedSieve = new PrecomputedSieve(new EratosthenesSieve());
+
+        final Map<String, PrimeSupplier> algorithms = new HashMap<>();
+        algorithms.put("precomputed", precomputedSieve);
+        algorithms.put("error", i -> {throw new CalculationException();});
+
+        primesResource = new PrimesResource(algorithms::get, 1000, "precomputed");
+    }
+
+    /**
+     * Unhealthy until the warm-up has run, then healthy with the primes
+     * precomputed
+     */
+    @Test
+    public void testHealthyOnceFinished() {
+        final WarmUp warmUp = warmUp();
+
+        assertFalse(warmUp.healthCheck().execute().isHealthy());
+
+        warmUp.run();
+
+        assertTrue(warmUp.healthCheck().execute().isHealthy());
+        assertEquals(168, precomputedSieve.getBitmap().count());
+    }
+
+    /**
+     * Healthy straight away if the warm-up is disabled
+     */
+    @Test
+    public void testDisabled() {
+        configuration.setEnabled(false);
+
+        final WarmUp warmUp = warmUp();
+        warmUp.start();
+
+        assertTrue(warmUp.healthCheck().execute().isHealthy());
+    }
+
+    private WarmUp warmUp() {
+        return new WarmUp(
+                    configuration,
+                    precomputedSieve,
+                    primesResource,
+                    asList("precomputed", "error"),
+                    new PrimesResultsWriter());
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.prime.application.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.example.prime.application.PrimesApplication;
+import com.example.prime.application.PrimesConfiguration;
+import com.example.prime.core.SegmentedSieve;
+import com.fasterxml.jackson.core.JsonFactory;
+
+import io.dropwizard.testing.ResourceHelpers;
+import io.dropwizard.testing.junit.DropwizardAppRule;
+import io.dropwizard.util.Duration;
+
+/**
+ * Runs the coordinator against two instances of {@link PrimesApplication} on
+ * localhost, so that {@link PeerClient} is checked against the real range
+ * resource rather than a stand-in.
+ *
+ * Only runs in the 'integration-test' maven profile. The application needs
+ * Java 8, so when building with a later JDK point the tests at a Java 8 JVM:
+ * > mvn -Pintegration-test test -Dtest=ClusterIntegrationTest -Djvm=/path/to/java8/bin/java
+ */
+public class ClusterIntegrationTest {
+
+    @ClassRule
+    public static final DropwizardAppRule<PrimesConfiguration> FIRST_PEER =
+            new DropwizardAppRule<>(
+                    PrimesApplication.class,
+                    ResourceHelpers.resourceFilePath("cluster-test.yml"));
+
+    @ClassRule
+    public static final DropwizardAppRule<PrimesConfiguration> SECOND_PEER =
+            new DropwizardAppRule<>(
+                    PrimesApplication.class,
+                    ResourceHelpers.resourceFilePath("cluster-test.yml"));
+
+    private static final ExecutorService executor =
+            Executors.newCachedThreadPool();
+
+    private static final SegmentedSieve sieve = new SegmentedSieve(executor);
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A window fetched from a peer matches the window sieved locally
+     */
+    @Test
+    public void testWindow() throws Exception {
+        assertEquals(
+                sieve.seiveSegment(999000, 1000000),
+                client().primesBetween(peer(FIRST_PEER), 999000, 1000000));
+        assertEquals(
+                Arrays.asList(2),
+                client().primesBetween(peer(FIRST_PEER), 2, 2));
+        assertTrue(
+                client().primesBetween(peer(FIRST_PEER), 24, 28).isEmpty());
+    }
+
+    /**
+     * Windows the peer refuses are reported as failures
+     */
+    @Test
+    public void testRejectedWindow() throws Exception {
+        assertRejected(5000000, 4000000);
+        assertRejected(2, 2000000);
+    }
+
+    /**
+     * The windows joined from both peers match the primes calculated locally,
+     * whether they are returned as a list or streamed
+     */
+    @Test
+    public void testMatchesLocalSieve() throws Exception {
+        final DistributedSieve distributed = distributedSieve(100000);
+
+        assertEquals(sieve.primesUpTo(3000000), distributed.primesUpTo(3000000));
+        assertEquals(sieve.primesUpTo(100001), distributed.primesUpTo(100001));
+
+        final List<Integer> streamed = new ArrayList<>();
+        distributed.stream(3000000, streamed::add);
+
+        assertEquals(sieve.primesUpTo(3000000), streamed);
+    }
+
+    private static void assertRejected(final int from, final int to) {
+        try {
+            client().primesBetween(peer(SECOND_PEER), from, to);
+            fail("[" + from + "," + to + "] should have been rejected");
+        }
+        catch ( final IOException ex ) {
+            // expected
+        }
+    }
+
+    private static DistributedSieve distributedSieve(final int windowSize) {
+        final ClusterConfiguration configuration = new ClusterConfiguration();
+        configuration.setPeers(Arrays.asList(peer(FIRST_PEER), peer(SECOND_PEER)));
+        configuration.setWindowSize(windowSize);
+        configuration.setHedgeDelay(Duration.seconds(10));
+
+        return new DistributedSieve(configuration, client(), executor);
+    }
+
+    private static PeerClient client() {
+        return new PeerClient(
+                new JsonFactory(),
+                Duration.seconds(2),
+                Duration.seconds(30));
+    }
+
+    private static String peer(final DropwizardAppRule<?> app) {
+        return "http://localhost:" + app.getLocalPort();
+    }
+}
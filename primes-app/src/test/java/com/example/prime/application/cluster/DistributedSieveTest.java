@@ -0,0 +1,248 @@
+package com.example.prime.application.cluster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.SegmentedSieve;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.dropwizard.util.Duration;
+
+/**
+ * Runs the coordinator against peers listening on localhost that answer the
+ * range resource's protocol, but can be made to fail or respond slowly.
+ */
+public class DistributedSieveTest {
+
+    private ExecutorService executorService;
+    private SegmentedSieve sieve;
+    private List<HttpServer> servers;
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newCachedThreadPool();
+        sieve = new SegmentedSieve(executorService);
+        servers = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        servers.forEach(server -> server.stop(0));
+        executorService.shutdownNow();
+    }
+
+    /**
+     * The joined windows match the primes calculated locally, including
+     * bounds that end in a window of a single value
+     */
+    @Test
+    public void testMatchesLocalSieve() throws Exception {
+        final DistributedSieve distributed =
+                distributedSieve(
+                        10000,
+                        Duration.seconds(10),
+                        peer(0, false, null),
+                        peer(0, false, null));
+
+        assertEquals(sieve.primesUpTo(1000000), distributed.primesUpTo(1000000));
+        assertEquals(Arrays.asList(2), distributed.primesUpTo(2));
+        assertEquals(sieve.primesUpTo(10001), distributed.primesUpTo(10001));
+    }
+
+    /**
+     * Streamed windows arrive in ascending order without being joined first
+     */
+    @Test
+    public void testStreamsInOrder() throws Exception {
+        final DistributedSieve distributed =
+                distributedSieve(
+                        1000,
+                        Duration.seconds(10),
+                        peer(0, false, null),
+                        peer(0, false, null),
+                        peer(0, false, null));
+
+        final List<Integer> streamed = new ArrayList<>();
+        distributed.stream(100000, streamed::add);
+
+        assertEquals(sieve.primesUpTo(100000), streamed);
+    }
+
+    /**
+     * Windows sent to a failing peer are retried on the next one
+     */
+    @Test
+    public void testRetriesFailedWindows() throws Exception {
+        final AtomicInteger failures = new AtomicInteger();
+
+        final DistributedSieve distributed =
+                distributedSieve(
+                        10000,
+                        Duration.seconds(10),
+                        peer(0, true, failures),
+                        peer(0, false, null));
+
+        assertEquals(sieve.primesUpTo(100000), distributed.primesUpTo(100000));
+
+        // half the windows are sent to the failing peer first
+        assertEquals(5, failures.get());
+    }
+
+    /**
+     * Windows that a slow peer sits on are answered by another peer instead
+     */
+    @Test
+    public void testHedgesSlowWindows() throws Exception {
+        final DistributedSieve distributed =
+                distributedSieve(
+                        10000,
+                        Duration.milliseconds(20),
+                        peer(5000, false, null),
+                        peer(0, false, null));
+
+        final long start = System.nanoTime();
+
+        assertEquals(sieve.primesUpTo(100000), distributed.primesUpTo(100000));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                        < 5000);
+    }
+
+    /**
+     * A window that fails on every attempt fails the calculation
+     */
+    @Test(expected=CalculationException.class)
+    public void testFailsWhenEveryAttemptFails() throws Exception {
+        final DistributedSieve distributed =
+                distributedSieve(
+                        10000,
+                        Duration.seconds(10),
+                        peer(0, true, null),
+                        peer(0, true, null));
+
+        distributed.primesUpTo(100000);
+    }
+
+    /**
+     * There are no primes to distribute below 2
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidBounds() throws Exception {
+        distributedSieve(10000, Duration.seconds(10), peer(0, false, null))
+                .primesUpTo(1);
+    }
+
+    private DistributedSieve distributedSieve(
+            final int windowSize,
+            final Duration hedgeDelay,
+            final String... peers) {
+
+        final ClusterConfiguration configuration = new ClusterConfiguration();
+        configuration.setPeers(Arrays.asList(peers));
+        configuration.setWindowSize(windowSize);
+        configuration.setHedgeDelay(hedgeDelay);
+        configuration.setMaxAttempts(3);
+        configuration.setConcurrency(4);
+
+        return new DistributedSieve(
+                    configuration,
+                    new PeerClient(
+                            new JsonFactory(),
+                            configuration.getConnectTimeout(),
+                            configuration.getReadTimeout()),
+                    executorService);
+    }
+
+    /**
+     * Start a peer on an ephemeral port
+     *
+     * @param delayMillis  how long to wait before answering
+     * @param failing      whether to answer every request with an error
+     * @param requests     counts the requests, may be null
+     *
+     * @return the base URL of the peer
+     */
+    private String peer(
+            final long delayMillis,
+            final boolean failing,
+            final AtomicInteger requests) throws IOException {
+
+        final HttpServer server =
+                HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executorService);
+        server.createContext("/primes/range", exchange -> {
+            if ( requests != null ) {
+                requests.incrementAndGet();
+            }
+
+            try {
+                Thread.sleep(delayMillis);
+            }
+            catch ( final InterruptedException ex ) {
+                Thread.currentThread().interrupt();
+            }
+
+            if ( failing ) {
+                respond(exchange, 500, "{\"code\":500}");
+                return;
+            }
+
+            final Map<String, Integer> query = parseQuery(exchange);
+            final String primes =
+                    sieve.seiveSegment(query.get("from"), query.get("to"))
+                         .stream()
+                         .map(String::valueOf)
+                         .collect(Collectors.joining(","));
+
+            respond(exchange, 200, "{\"primes\":[" + primes + "]}");
+        });
+        server.start();
+        servers.add(server);
+
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static Map<String, Integer> parseQuery(final HttpExchange exchange) {
+        final Map<String, Integer> query = new HashMap<>();
+        for ( final String parameter :
+                exchange.getRequestURI().getQuery().split("&") ) {
+            final String[] pair = parameter.split("=");
+            query.put(pair[0], Integer.valueOf(pair[1]));
+        }
+        return query;
+    }
+
+    private static void respond(
+            final HttpExchange exchange,
+            final int status,
+            final String body) throws IOException {
+
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try ( final OutputStream out = exchange.getResponseBody() ) {
+            out.write(bytes);
+        }
+    }
+}
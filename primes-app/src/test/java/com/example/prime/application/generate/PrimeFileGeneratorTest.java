@@ -0,0 +1,235 @@
+package com.example.prime.application.generate;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.SegmentedSieve;
+
+/**
+ * Check the files written by {@link PrimeFileGenerator} in each format, and
+ * that an interrupted run can be resumed
+ */
+public class PrimeFileGeneratorTest {
+
+    private static final ExecutorService executor =
+            Executors.newFixedThreadPool(2);
+
+    private static final PrimeFileGenerator.ProgressListener IGNORED =
+            (done, total, primes, bytes) -> { };
+
+    // Reference implementation
+    private final SegmentedSieve sieve = new SegmentedSieve(executor);
+
+    // Object under test, with small segments so that there are many of them
+    private final PrimeFileGenerator generator =
+            new PrimeFileGenerator(sieve, executor, 3, 1000);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * A prime per line
+     */
+    @Test
+    public void testText() throws IOException, CalculationException {
+        final Path out = generate(0, 100000, OutputFormat.TEXT);
+
+        final List<Integer> primes = new ArrayList<>();
+        for ( final String line : Files.readAllLines(out, US_ASCII) ) {
+            primes.add(Integer.parseInt(line));
+        }
+        assertEquals(sieve.seiveSegment(0, 100000), primes);
+    }
+
+    /**
+     * 4 bytes per prime, including the largest values
+     */
+    @Test
+    public void testBinary() throws IOException, CalculationException {
+        final int from = Integer.MAX_VALUE - 100000;
+        final Path out = generate(from, Integer.MAX_VALUE, OutputFormat.BINARY);
+
+        assertEquals(sieve.seiveSegment(from, Integer.MAX_VALUE), readBinary(out));
+    }
+
+    /**
+     * The first prime, then half of each gap, including the odd gap from 2
+     * to 3 and segments whose previous prime is in another segment
+     */
+    @Test
+    public void testGap() throws IOException, CalculationException {
+        for ( final int from : new int[] { 0, 3, 1000, 999983 } ) {
+            final Path out = generate(from, 1100000, OutputFormat.GAP);
+
+            assertEquals(sieve.seiveSegment(from, 1100000), readGaps(out));
+        }
+    }
+
+    /**
+     * A range without primes gives an empty file
+     */
+    @Test
+    public void testNoPrimes() throws IOException, CalculationException {
+        assertEquals(0, Files.size(generate(90, 96, OutputFormat.GAP)));
+    }
+
+    /**
+     * A run that is interrupted carries on from its checkpoint and writes the
+     * same file as one that wasn't
+     */
+    @Test
+    public void testResume() throws IOException, CalculationException {
+        final Path complete = generate(0, 100000, OutputFormat.GAP);
+
+        final Path out = folder.getRoot().toPath().resolve("resumed");
+        try {
+            generator.generate(
+                    0,
+                    100000,
+                    OutputFormat.GAP,
+                    out,
+                    (done, total, primes, bytes) -> {
+                        if ( done > 50000 ) {
+                            throw new IllegalStateException("Interrupted");
+                        }
+                    });
+            fail("Expected the run to be interrupted");
+        }
+        catch ( final IllegalStateException ex ) {
+            // expected
+        }
+
+        assertTrue(Files.exists(PrimeFileGenerator.checkpointFor(out)));
+
+        final long[] resumedAt = new long[1];
+        generator.generate(
+                0,
+                100000,
+                OutputFormat.GAP,
+                out,
+                new PrimeFileGenerator.ProgressListener() {
+                    @Override
+                    public void started(final long done, final long total) {
+                        resumedAt[0] = done;
+                    }
+
+                    @Override
+                    public void segmentWritten(
+                            final long done,
+                            final long total,
+                            final long primes,
+                            final long bytes) {
+                    }
+                });
+
+        assertEquals(51000, resumedAt[0]);
+        assertArrayEquals(Files.readAllBytes(complete), Files.readAllBytes(out));
+        assertFalse(Files.exists(PrimeFileGenerator.checkpointFor(out)));
+    }
+
+    /**
+     * A checkpoint can't be resumed with different arguments
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testMismatchedCheckpoint() throws IOException, CalculationException {
+        final Path out = folder.getRoot().toPath().resolve("mismatched");
+        new Checkpoint(0, 1000, OutputFormat.TEXT, 500, 0, 0)
+            .save(PrimeFileGenerator.checkpointFor(out));
+
+        generator.generate(0, 1000, OutputFormat.BINARY, out, IGNORED);
+    }
+
+    /**
+     * A checkpoint isn't resumed if the file has lost some of what it says
+     * was written, rather than filling the gap with zeros
+     */
+    @Test
+    public void testTruncatedOutput() throws IOException, CalculationException {
+        final Path out = folder.getRoot().toPath().resolve("truncated");
+        new Checkpoint(0, 1000, OutputFormat.BINARY, 500, 380, 95)
+            .save(PrimeFileGenerator.checkpointFor(out));
+        Files.write(out, new byte[100]);
+
+        try {
+            generator.generate(0, 1000, OutputFormat.BINARY, out, IGNORED);
+            fail("Expected the truncated file to be rejected");
+        }
+        catch ( final IOException ex ) {
+            // expected
+        }
+
+        assertEquals(100, Files.size(out));
+        assertTrue(Files.exists(PrimeFileGenerator.checkpointFor(out)));
+    }
+
+    private Path generate(
+            final int from,
+            final int to,
+            final OutputFormat format) throws IOException, CalculationException {
+
+        final Path out = folder.newFile().toPath();
+        generator.generate(from, to, format, out, IGNORED);
+        return out;
+    }
+
+    private static List<Integer> readBinary(final Path file) throws IOException {
+        final DataInputStream in =
+                new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)));
+
+        final List<Integer> primes = new ArrayList<>();
+        try {
+            while ( true ) {
+                primes.add(in.readInt());
+            }
+        }
+        catch ( final EOFException ex ) {
+            return primes;
+        }
+    }
+
+    private static List<Integer> readGaps(final Path file) throws IOException {
+        final byte[] bytes = Files.readAllBytes(file);
+        final DataInputStream in =
+                new DataInputStream(new ByteArrayInputStream(bytes));
+
+        final List<Integer> primes = new ArrayList<>();
+        int prime = in.readInt();
+        primes.add(prime);
+        for ( int i = 4; i < bytes.length; i++ ) {
+            final int half = bytes[i] & 0xFF;
+            prime += half == 0 ? 1 : 2 * half;
+            primes.add(prime);
+        }
+        return primes;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.prime.application.recording;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.example.prime.application.resources.PrimesResource;
+import com.example.prime.core.PrimeSupplier;
+import com.example.prime.core.SegmentedSieve;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMultimap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Records a calculation through the admin task and checks that the sieve
+ * and request events are in the recording
+ */
+public class FlightRecorderTaskTest {
+
+    private ExecutorService executor;
+    private FlightRecorderTask task;
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(2);
+        task = new FlightRecorderTask();
+        file = Files.createTempFile("primes", ".jfr");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        // don't leave a recording running if a test failed
+        execute(ImmutableMultimap.of("action", "stop"));
+        executor.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Each phase of a calculation is recorded
+     */
+    @Test
+    public void testRecordsCalculation() throws Exception {
+        final Map<String, PrimeSupplier> algorithms = new HashMap<>();
+        algorithms.put("segmented", new SegmentedSieve(executor));
+
+        final PrimesResource primes =
+                new PrimesResource(algorithms::get, 1000, "segmented");
+
+        assertTrue(execute(ImmutableMultimap.of("action", "start"))
+                        .startsWith("Started recording"));
+
+        primes.calculatePrimes(Optional.of(2000000), Optional.absent());
+
+        assertTrue(execute(ImmutableMultimap.of("action", "stop", "file", file.toString()))
+                        .contains(file.toAbsolutePath().toString()));
+
+        final Map<String, Integer> counts = new HashMap<>();
+        RecordedEvent calculation = null;
+        for ( final RecordedEvent event : RecordingFile.readAllEvents(file) ) {
+            final String name = event.getEventType().getName();
+            counts.merge(name, 1, Integer::sum);
+
+            if ( "com.example.prime.Calculation".equals(name) ) {
+                calculation = event;
+            }
+        }
+
+        // 2 million needs four bitmaps of odd values, sieved by a task per
+        // core
+        assertEquals(Integer.valueOf(4), counts.get("com.example.prime.Segment"));
+        assertEquals(Integer.valueOf(4), counts.get("com.example.prime.Merge"));
+        assertEquals(
+                Integer.valueOf(Math.min(4, Runtime.getRuntime().availableProcessors())),
+                counts.get("com.example.prime.SieveTask"));
+
+        assertEquals("segmented", calculation.getString("algorithm"));
+        assertEquals(2000000, calculation.getInt("upto"));
+        assertEquals(148933, calculation.getInt("primes"));
+    }
+
+    /**
+     * The recording can only be dumped or stopped once it has started
+     */
+    @Test
+    public void testNotRecording() throws Exception {
+        assertEquals(
+                "Not recording",
+                execute(ImmutableMultimap.of("action", "dump")).trim());
+        assertEquals(
+                "action must be one of start, dump or stop",
+                execute(ImmutableMultimap.of()).trim());
+    }
+
+    private String execute(final ImmutableMultimap<String, String> parameters)
+            throws Exception {
+
+        final StringWriter output = new StringWriter();
+        task.execute(parameters, new PrintWriter(output));
+        return output.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.prime.application.resources;
+
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.example.prime.api.ArithmeticResults;
+import com.example.prime.core.ArithmeticSieve;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+
+/**
+ * Check that {@link ArithmeticResource} streams the functions of a range and
+ * rejects requests it can't answer before the response starts.
+ */
+public class ArithmeticResourceTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final ExecutorService executor =
+            Executors.newSingleThreadExecutor();
+
+    // Object under test
+    private ArithmeticResource arithmetic;
+
+    @Before
+    public void setup() {
+        arithmetic = new ArithmeticResource(new ArithmeticSieve(executor));
+    }
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Each function is calculated for both ends of the range
+     */
+    @Test
+    public void testFunctions() throws IOException {
+        assertEquals("[4,2,6,4]", values(calculate("phi", 5, 8)));
+        assertEquals("[-1,1,-1,0]", values(calculate("mu", 5, 8)));
+        assertEquals("[6,12,8,15]", values(calculate("sigma", 5, 8)));
+        assertEquals("[2,4,2,4]", values(calculate("d", 5, 8)));
+        assertEquals("[[],[2],[3],[2,2]]", values(calculate("factors", 1, 4)));
+    }
+
+    /**
+     * The values are written as they are calculated, in the same document
+     * as the range
+     */
+    @Test
+    public void testSerialization() throws JsonProcessingException {
+        assertEquals(
+                "{\"function\":\"phi\",\"from\":1,\"to\":5,\"values\":[1,1,2,2,4]}",
+                mapper.writeValueAsString(calculate("phi", 1, 5)));
+        assertEquals(
+                "{\"function\":\"factors\",\"from\":11,\"to\":12,\"values\":[[11],[2,2,3]]}",
+                mapper.writeValueAsString(calculate("factors", 11, 12)));
+    }
+
+    /**
+     * Both ends of the range are required, must be positive and in order,
+     * and the function must exist
+     */
+    @Test
+    public void testInvalidRequests() {
+        assertBadRequest("phi", Optional.absent(), Optional.of(10));
+        assertBadRequest("phi", Optional.of(1), Optional.absent());
+        assertBadRequest("phi", Optional.of(0), Optional.of(10));
+        assertBadRequest("phi", Optional.of(10), Optional.of(9));
+        assertBadRequest("lambda", Optional.of(1), Optional.of(10));
+    }
+
+    private ArithmeticResults calculate(
+            final String function,
+            final int from,
+            final int to) {
+
+        return arithmetic.calculate(function, Optional.of(from), Optional.of(to));
+    }
+
+    /**
+     * The serialized 'values' array, as JSON
+     */
+    private static String values(final ArithmeticResults results)
+            throws IOException {
+
+        return mapper.readTree(mapper.writeValueAsString(results))
+                     .get("values")
+                     .toString();
+    }
+
+    private void assertBadRequest(
+            final String function,
+            final Optional<Integer> from,
+            final Optional<Integer> to) {
+        try {
+            arithmetic.calculate(function, from, to);
+            fail("Expected a WebApplicationException");
+        }
+        catch ( final WebApplicationException ex ) {
+            assertEquals(BAD_REQUEST.getStatusCode(), ex.getResponse().getStatus());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.prime.application.resources;
+
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.example.prime.api.FactorBatchRequest;
+import com.example.prime.api.FactorResults;
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.EratosthenesSieve;
+import com.example.prime.core.Factorizer;
+import com.google.common.base.Optional;
+
+/**
+ * Check that {@link FactorResource} answers batches in order and handles
+ * invalid inputs.
+ */
+public class FactorResourceTest {
+
+    private static final ExecutorService executor =
+            Executors.newFixedThreadPool(2);
+
+    // Object under test
+    private static FactorResource factors;
+
+    @BeforeClass
+    public static void setup() throws CalculationException {
+        factors = new FactorResource(
+                        new Factorizer(new EratosthenesSieve(), 1000),
+                        executor,
+                        2);
+    }
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * A single number is factorized
+     */
+    @Test
+    public void testSingle() {
+        assertEquals(
+                asList(2L, 2L, 3L),
+                factors.factor(Optional.of(12L)).getFactors());
+    }
+
+    /**
+     * Invalid or missing numbers yield a BAD_REQUEST
+     */
+    @Test
+    public void testInvalidSingle() {
+        for ( final Optional<Long> n
+                : asList(Optional.of(1L), Optional.<Long>absent()) ) {
+            try {
+                factors.factor(n);
+
+                fail("should have raised exception");
+
+            } catch ( final WebApplicationException ex ) {
+                assertEquals(
+                        BAD_REQUEST.getStatusCode(),
+                        ex.getResponse().getStatus());
+            }
+        }
+    }
+
+    /**
+     * Batches are answered in order, invalid numbers are rejected individually
+     */
+    @Test
+    public void testBatch() {
+        final List<FactorResults> results =
+                factors.factorBatch(
+                        new FactorBatchRequest(asList(12L, 0L, 97L, 1000003L * 1000033L, 64L)))
+                       .getResults();
+
+        assertEquals(5, results.size());
+        assertEquals(asList(2L, 2L, 3L), results.get(0).getFactors());
+        assertEquals(
+                BAD_REQUEST.getStatusCode(),
+                results.get(1).getError().getCode().intValue());
+        assertEquals(asList(97L), results.get(2).getFactors());
+        assertEquals(asList(1000003L, 1000033L), results.get(3).getFactors());
+        assertNull(results.get(4).getError());
+        assertEquals(64L, results.get(4).getN());
+    }
+}
@@ -1,16 +1,23 @@
 package com.example.prime.application.resources;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableList;
 import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
 import static javax.ws.rs.core.Response.Status.INTERNAL_SERVER_ERROR;
+import static javax.ws.rs.core.Response.Status.REQUEST_ENTITY_TOO_LARGE;
+import static javax.ws.rs.core.Response.Status.SERVICE_UNAVAILABLE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
@@ -18,8 +25,19 @@ import javax.ws.rs.core.Response;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.example.prime.api.BatchQuery;
+import com.example.prime.api.BatchRequest;
+import com.example.prime.api.BatchResults;
+import com.example.prime.api.IndexResults;
+import com.example.prime.api.PrimeSequence;
+import com.example.prime.api.PrimesResults;
+import com.example.prime.api.StreamingPrimesResults;
+import com.example.prime.application.ExecutionPlanner;
 import com.example.prime.core.CalculationException;
+import com.example.prime.core.EratosthenesSieve;
+import com.example.prime.core.PrimeBitmap;
 import com.example.prime.core.PrimeSupplier;
+import com.example.prime.core.SegmentedSieve;
 import com.google.common.base.Optional;
 
 /**
@@ -137,11 +155,238 @@ public class PrimesResourceTest {
      */
     @Test
     public void testValidResponse() {
-        assertSame(
-                TEST_LIST,
+        final PrimeSequence results =
                 primes.calculatePrimes(
                     Optional.of(5),
-                    Optional.absent()).getPrimes());
+                    Optional.absent());
+
+        assertTrue(results instanceof PrimesResults);
+        assertSame(TEST_LIST, ((PrimesResults) results).getPrimes());
+    }
+
+    /**
+     * Each query in a batch is answered in order from a single calculation
+     */
+    @Test
+    public void testBatch() {
+        final List<Integer> bounds = new ArrayList<>();
+        algorithms.put("counting", i -> {
+            bounds.add(i);
+            return new EratosthenesSieve().primesUpTo(i);
+        });
+
+        final List<BatchResults.Result> results =
+                primes.calculateBatch(new BatchRequest(
+                        "counting",
+                        asList(
+                            new BatchQuery("upto", 10, null, null, null),
+                            new BatchQuery("range", null, 10, 30, null),
+                            new BatchQuery("count", 100, null, null, null),
+                            new BatchQuery("count", null, 2, 7, null),
+                            new BatchQuery("test", null, null, null, 97),
+                            new BatchQuery("test", null, null, null, 1))))
+                      .getResults();
+
+        assertEquals(asList(100), bounds);
+        assertEquals(asList(2, 3, 5, 7), results.get(0).getPrimes());
+        assertEquals(asList(11, 13, 17, 19, 23, 29), results.get(1).getPrimes());
+        assertEquals(Integer.valueOf(25), results.get(2).getCount());
+        assertEquals(Integer.valueOf(4), results.get(3).getCount());
+        assertEquals(Boolean.TRUE, results.get(4).getPrime());
+        assertEquals(Boolean.FALSE, results.get(5).getPrime());
+    }
+
+    /**
+     * Invalid queries are rejected individually without failing the batch
+     */
+    @Test
+    public void testBatchPartialErrors() {
+        algorithms.put("eratosthenes", new EratosthenesSieve());
+
+        final List<BatchResults.Result> results =
+                primes.calculateBatch(new BatchRequest(
+                        "eratosthenes",
+                        asList(
+                            new BatchQuery("upto", -2, null, null, null),
+                            new BatchQuery("range", null, 30, 10, null),
+                            new BatchQuery("bad", null, null, null, null),
+                            new BatchQuery("upto", 5, null, null, null))))
+                      .getResults();
+
+        assertEquals(4, results.size());
+        assertEquals(
+                BAD_REQUEST.getStatusCode(),
+                results.get(0).getError().getCode().intValue());
+        assertEquals(
+                BAD_REQUEST.getStatusCode(),
+                results.get(1).getError().getCode().intValue());
+        assertEquals(
+                BAD_REQUEST.getStatusCode(),
+                results.get(2).getError().getCode().intValue());
+        assertNull(results.get(3).getError());
+        assertEquals(asList(2, 3, 5), results.get(3).getPrimes());
+    }
+
+    /**
+     * A failing calculation fails the whole batch
+     */
+    @Test
+    public void testBatchAlgorithmError() {
+        algorithms.put("error", i -> {throw new CalculationException();});
+
+        try {
+            primes.calculateBatch(new BatchRequest(
+                    "error",
+                    asList(new BatchQuery("upto", 10, null, null, null))));
+
+            fail("should have raised exception");
+
+        } catch ( final WebApplicationException ex ) {
+            assertErrorCodeIs(INTERNAL_SERVER_ERROR, ex);
+        }
+    }
+
+    /**
+     * An empty batch is a BAD_REQUEST
+     */
+    @Test
+    public void testEmptyBatch() {
+        try {
+            primes.calculateBatch(new BatchRequest(null, new ArrayList<>()));
+
+            fail("should have raised exception");
+
+        } catch ( final WebApplicationException ex ) {
+            assertErrorCodeIs(BAD_REQUEST, ex);
+        }
+    }
+
+    /**
+     * Calculations that won't fit into memory are streamed, or rejected if
+     * they can't be streamed
+     */
+    @Test
+    public void testMemoryPlanning() throws CalculationException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final SegmentedSieve segmented = new SegmentedSieve(executor);
+            algorithms.put("eratosthenes", new EratosthenesSieve());
+
+            // Only enough memory to stream
+            primes = new PrimesResource(
+                            algorithms::get,
+                            DEFAULT_BOUNDS,
+                            DEFAULT_ALGORITHM,
+                            new ExecutionPlanner(
+                                    segmented,
+                                    () -> 1024 * 1024,
+                                    () -> 1024 * 1024 * 1024,
+                                    1.0));
+
+            final PrimeSequence streamed =
+                    primes.calculatePrimes(
+                            Optional.of(1000000),
+                            Optional.of("eratosthenes"));
+
+            assertTrue(streamed instanceof StreamingPrimesResults);
+
+            final List<Integer> collected = new ArrayList<>();
+            streamed.forEachPrime(collected::add);
+            assertEquals(segmented.primesUpTo(1000000), collected);
+
+            // A batch can't be streamed, so there isn't enough memory
+            try {
+                primes.calculateBatch(new BatchRequest(
+                        "eratosthenes",
+                        asList(new BatchQuery("upto", 1000000, null, null, null))));
+
+                fail("should have raised exception");
+
+            } catch ( final WebApplicationException ex ) {
+                assertErrorCodeIs(SERVICE_UNAVAILABLE, ex);
+            }
+
+            // More than the whole heap
+            try {
+                primes.calculateBatch(new BatchRequest(
+                        "eratosthenes",
+                        asList(new BatchQuery("upto", Integer.MAX_VALUE, null, null, null))));
+
+                fail("should have raised exception");
+
+            } catch ( final WebApplicationException ex ) {
+                assertErrorCodeIs(REQUEST_ENTITY_TOO_LARGE, ex);
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Counting and searching are answered from the precomputed primes
+     */
+    @Test
+    public void testIndexQueries() throws CalculationException {
+        final PrimeBitmap bitmap =
+                PrimeBitmap.of(new EratosthenesSieve(), 100);
+
+        primes = new PrimesResource(
+                        algorithms::get,
+                        DEFAULT_BOUNDS,
+                        DEFAULT_ALGORITHM,
+                        ExecutionPlanner.unlimited(),
+                        () -> bitmap);
+
+        final IndexResults count = primes.countPrimes(Optional.of(30));
+        assertEquals(Integer.valueOf(30), count.getUpto());
+        assertEquals(Integer.valueOf(10), count.getCount());
+        assertNull(count.getPrime());
+
+        final IndexResults nth = primes.nthPrime(Optional.of(25));
+        assertEquals(Integer.valueOf(25), nth.getN());
+        assertEquals(Integer.valueOf(97), nth.getPrime());
+
+        assertEquals(
+                Integer.valueOf(29),
+                primes.nextPrime(Optional.of(23)).getPrime());
+        assertEquals(
+                Integer.valueOf(19),
+                primes.previousPrime(Optional.of(23)).getPrime());
+
+        // Missing parameters and values beyond the precomputed primes
+        try {
+            primes.countPrimes(Optional.absent());
+
+            fail("should have raised exception");
+
+        } catch ( final WebApplicationException ex ) {
+            assertErrorCodeIs(BAD_REQUEST, ex);
+        }
+
+        try {
+            primes.nextPrime(Optional.of(97));
+
+            fail("should have raised exception");
+
+        } catch ( final WebApplicationException ex ) {
+            assertErrorCodeIs(BAD_REQUEST, ex);
+        }
+    }
+
+    /**
+     * Queries of the index are unavailable until the primes are precomputed
+     */
+    @Test
+    public void testIndexNotPrecomputed() {
+        try {
+            primes.nthPrime(Optional.of(1));
+
+            fail("should have raised exception");
+
+        } catch ( final WebApplicationException ex ) {
+            assertErrorCodeIs(SERVICE_UNAVAILABLE, ex);
+        }
     }
 
     /**
@@ -0,0 +1,109 @@
+package com.example.prime.application.resources;
+
+import static java.util.Arrays.asList;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.REQUEST_ENTITY_TOO_LARGE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.example.prime.core.SegmentedSieve;
+import com.google.common.base.Optional;
+
+/**
+ * Check that {@link RangeResource} returns the primes in a window and rejects
+ * windows it shouldn't calculate.
+ */
+public class RangeResourceTest {
+
+    private static final int MAX_WINDOW_SIZE = 1000;
+
+    private static final ExecutorService executor =
+            Executors.newSingleThreadExecutor();
+
+    // Object under test
+    private RangeResource range;
+
+    @Before
+    public void setup() {
+        range = new RangeResource(
+                        new SegmentedSieve(executor),
+                        MAX_WINDOW_SIZE);
+    }
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Both ends of the range are included
+     */
+    @Test
+    public void testRange() {
+        assertEquals(
+                asList(2, 3, 5, 7),
+                range.calculateRange(Optional.of(0), Optional.of(7))
+                     .getPrimes());
+        assertEquals(
+                asList(89, 97, 101),
+                range.calculateRange(Optional.of(89), Optional.of(101))
+                     .getPrimes());
+        assertEquals(
+                asList(),
+                range.calculateRange(Optional.of(90), Optional.of(96))
+                     .getPrimes());
+    }
+
+    /**
+     * Both ends of the range are required and must be in order
+     */
+    @Test
+    public void testInvalidRange() {
+        assertStatus(BAD_REQUEST.getStatusCode(), Optional.absent(), Optional.of(10));
+        assertStatus(BAD_REQUEST.getStatusCode(), Optional.of(10), Optional.absent());
+        assertStatus(BAD_REQUEST.getStatusCode(), Optional.of(10), Optional.of(9));
+    }
+
+    /**
+     * Windows larger than the configured maximum are rejected
+     */
+    @Test
+    public void testWindowTooLarge() {
+        range.calculateRange(Optional.of(1), Optional.of(MAX_WINDOW_SIZE));
+
+        assertStatus(
+                REQUEST_ENTITY_TOO_LARGE.getStatusCode(),
+                Optional.of(0),
+                Optional.of(MAX_WINDOW_SIZE));
+        assertStatus(
+                REQUEST_ENTITY_TOO_LARGE.getStatusCode(),
+                Optional.of(Integer.MIN_VALUE),
+                Optional.of(Integer.MAX_VALUE));
+    }
+
+    private void assertStatus(
+            final int status,
+            final Optional<Integer> from,
+            final Optional<Integer> to) {
+        try {
+            range.calculateRange(from, to);
+            fail("Expected a WebApplicationException");
+        }
+        catch ( final WebApplicationException ex ) {
+            assertEquals(status, ex.getResponse().getStatus());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.prime.application.resources;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static javax.ws.rs.core.Response.Status.BAD_REQUEST;
+import static javax.ws.rs.core.Response.Status.REQUEST_ENTITY_TOO_LARGE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.example.prime.api.StatisticsResults;
+import com.example.prime.core.SegmentedSieve;
+import com.google.common.base.Optional;
+
+/**
+ * Check that {@link StatisticsResource} returns the selected aggregates and
+ * rejects unknown ones.
+ */
+public class StatisticsResourceTest {
+
+    private static final int DEFAULT_BOUNDS = 1000;
+
+    private static final int MAX_TUPLE_BOUNDS = 100000;
+
+    private static final ExecutorService executor =
+            Executors.newSingleThreadExecutor();
+
+    // Object under test
+    private StatisticsResource statistics;
+
+    @Before
+    public void setup() {
+        statistics = new StatisticsResource(
+                            new SegmentedSieve(executor),
+                            DEFAULT_BOUNDS,
+                            MAX_TUPLE_BOUNDS);
+    }
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Only the selected aggregates are returned
+     */
+    @Test
+    public void testSelectedAggregates() {
+        final StatisticsResults results =
+                statistics.calculateStatistics(
+                        Optional.of(100),
+                        asList("count", "twin"),
+                        asList("quadruplet"));
+
+        assertEquals(Long.valueOf(25), results.getCount());
+        assertNull(results.getSum());
+        assertNull(results.getMaxGap());
+        assertEquals(Long.valueOf(8), results.getConstellations().get("twin"));
+        assertEquals(
+                asList(5, 11),
+                results.getTuples().get("quadruplet"));
+    }
+
+    /**
+     * The default aggregates are returned if none are selected
+     */
+    @Test
+    public void testDefaultAggregates() {
+        final StatisticsResults results =
+                statistics.calculateStatistics(
+                        Optional.absent(),
+                        emptyList(),
+                        emptyList());
+
+        assertEquals(DEFAULT_BOUNDS, results.getUpto());
+        assertEquals(Long.valueOf(168), results.getCount());
+        assertEquals(Long.valueOf(76127), results.getSum());
+        assertEquals(20, results.getMaxGap().getGap());
+        assertEquals(887, results.getMaxGap().getAfter());
+        assertNull(results.getTuples());
+    }
+
+    /**
+     * Unknown aggregates are a BAD_REQUEST
+     */
+    @Test
+    public void testUnknownAggregate() {
+        try {
+            statistics.calculateStatistics(
+                    Optional.absent(),
+                    asList("bad"),
+                    emptyList());
+
+            fail("should have raised exception");
+
+        } catch ( final WebApplicationException ex ) {
+            assertEquals(
+                    BAD_REQUEST.getStatusCode(),
+                    ex.getResponse().getStatus());
+        }
+    }
+
+    /**
+     * Listing constellations beyond the maximum bounds is a
+     * REQUEST_ENTITY_TOO_LARGE,
+     * while the aggregates alone are still calculated
+     */
+    @Test
+    public void testTuplesTooLarge() {
+        try {
+            statistics.calculateStatistics(
+                    Optional.of(MAX_TUPLE_BOUNDS + 1),
+                    emptyList(),
+                    asList("twin"));
+
+            fail("should have raised exception");
+
+        } catch ( final WebApplicationException ex ) {
+            assertEquals(
+                    REQUEST_ENTITY_TOO_LARGE.getStatusCode(),
+                    ex.getResponse().getStatus());
+        }
+
+        final StatisticsResults results =
+                statistics.calculateStatistics(
+                        Optional.of(MAX_TUPLE_BOUNDS + 1),
+                        asList("twin"),
+                        emptyList());
+
+        assertEquals(
+                Long.valueOf(1224),
+                results.getConstellations().get("twin"));
+        assertNull(results.getTuples());
+    }
+}
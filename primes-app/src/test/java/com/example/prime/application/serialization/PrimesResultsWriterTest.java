@@ -0,0 +1,85 @@
+package com.example.prime.application.serialization;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.example.prime.api.PrimeSequence;
+import com.example.prime.api.PrimesResults;
+import com.example.prime.api.StreamingPrimesResults;
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.EratosthenesSieve;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Check that {@link PrimesResultsWriter} writes exactly the same JSON as
+ * Jackson would for the list of primes
+ */
+public class PrimesResultsWriterTest {
+
+    private final PrimesResultsWriter writer = new PrimesResultsWriter();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Lists of every length and values of every number of digits
+     */
+    @Test
+    public void testMatchesJackson() throws IOException {
+        assertMatches(new PrimesResults(asList()));
+        assertMatches(new PrimesResults(asList(2)));
+        assertMatches(new PrimesResults(
+                asList(0, 7, 10, 99, 100, 101, 9999, 10007, 999983, 1000003,
+                       99999989, 100000007, 999999937, 1000000007,
+                       Integer.MAX_VALUE)));
+    }
+
+    /**
+     * The primes are formatted the same whether they are held in an IntList,
+     * any other list, or streamed, including lists that fill the buffer
+     * several times over
+     */
+    @Test
+    public void testLargeLists() throws IOException, CalculationException {
+        final List<Integer> primes = new EratosthenesSieve().primesUpTo(1000000);
+        assertEquals(78498, primes.size());
+
+        assertMatches(new PrimesResults(primes));
+        assertMatches(new PrimesResults(new ArrayList<>(primes)));
+
+        // Jackson can't write streamed primes, compare them with the list
+        assertEquals(
+                write(new PrimesResults(primes)),
+                write(new StreamingPrimesResults(
+                        consumer -> primes.forEach(consumer::accept))));
+    }
+
+    /**
+     * A failed calculation aborts the response
+     */
+    @Test(expected=IOException.class)
+    public void testFailedCalculation() throws IOException {
+        writer.write(
+                new StreamingPrimesResults(consumer -> {
+                    throw new CalculationException("Failed");
+                }),
+                new ByteArrayOutputStream());
+    }
+
+    private void assertMatches(final PrimesResults results) throws IOException {
+        assertEquals(mapper.writeValueAsString(results), write(results));
+    }
+
+    private String write(final PrimeSequence results) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(results, out);
+        return new String(out.toByteArray(), US_ASCII);
+    }
+}
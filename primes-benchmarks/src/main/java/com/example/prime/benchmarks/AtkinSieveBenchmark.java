@@ -0,0 +1,73 @@
+package com.example.prime.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.prime.core.AtkinSieve;
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.SegmentedSieve;
+
+/**
+ * Compares the Sieve of Atkin with the segmented Sieve of Eratosthenes over
+ * the same bitmaps and threads. The list of primes up to 10^9 needs ~200MB,
+ * run with a large enough heap (e.g. -jvmArgsAppend -Xmx1g).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AtkinSieveBenchmark {
+
+    @Param({ "100000000", "1000000000" })
+    private int upperBound;
+
+    @Param({ "atkin", "segmented" })
+    private String algorithm;
+
+    private ExecutorService executor;
+    private SegmentedSieve sieve;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(
+                        Runtime.getRuntime().availableProcessors());
+        sieve = "atkin".equals(algorithm) ? new AtkinSieve(executor)
+                                          : new SegmentedSieve(executor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public List<Integer> primesUpTo() throws CalculationException {
+        return sieve.primesUpTo(upperBound);
+    }
+
+    @Benchmark
+    public long countPrimes() throws CalculationException {
+        return sieve.reduce(
+                    upperBound,
+                    () -> new long[1],
+                    (count, prime) -> count[0]++,
+                    (a, b) -> { a[0] += b[0]; return a; })[0];
+    }
+}
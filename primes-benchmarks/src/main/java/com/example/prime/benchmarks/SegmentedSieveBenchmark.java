@@ -0,0 +1,124 @@
+package com.example.prime.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.ScalarSegmentKernel;
+import com.example.prime.core.SegmentKernel;
+import com.example.prime.core.SegmentKernels;
+import com.example.prime.core.SegmentedSieve;
+
+/**
+ * Measures the segmented sieve. Run with the GC profiler (-prof gc) to see
+ * the allocation per operation: the kernel benchmark should allocate nothing
+ * and primesUpTo little more than the int[] that holds the result.
+ *
+ * The 'vector' kernel needs Java 16 or later and
+ * -jvmArgsAppend --add-modules=jdk.incubator.vector
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SegmentedSieveBenchmark {
+
+    @Param({ "1000000", "100000000" })
+    private int upperBound;
+
+    @Param({ "scalar", "vector" })
+    private String kernel;
+
+    private ExecutorService executor;
+    private SegmentKernel segmentKernel;
+    private SegmentedSieve sieve;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(
+                        Runtime.getRuntime().availableProcessors());
+        segmentKernel = kernel(kernel);
+        sieve = new SegmentedSieve(executor, segmentKernel);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public List<Integer> primesUpTo() throws CalculationException {
+        return sieve.primesUpTo(upperBound);
+    }
+
+    @Benchmark
+    public List<Integer> seiveSegment() {
+        // a single window near the upper bound, as served to a coordinator
+        return sieve.seiveSegment(upperBound - 1000000, upperBound);
+    }
+
+    @Benchmark
+    public long countPrimes() throws CalculationException {
+        return sieve.reduce(
+                    upperBound,
+                    () -> new long[1],
+                    (count, prime) -> count[0]++,
+                    (a, b) -> { a[0] += b[0]; return a; })[0];
+    }
+
+    /**
+     * One bitmap of odd values, sieved and extracted on the calling thread
+     */
+    @State(Scope.Thread)
+    public static class Segment {
+
+        final int[] basePrimes = SegmentedSieve.basePrimes();
+        final long[] words = new long[SegmentedSieve.BUFFER_ODDS / 64];
+        final int[] primes = new int[SegmentedSieve.BUFFER_ODDS];
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int segmentKernel(final Segment segment) {
+        final long lowOdd = (upperBound - 2L * SegmentedSieve.BUFFER_ODDS) | 1;
+
+        segmentKernel.sieve(
+                segment.basePrimes,
+                lowOdd,
+                SegmentedSieve.BUFFER_ODDS,
+                segment.words);
+
+        return segmentKernel.extract(
+                segment.words,
+                SegmentedSieve.BUFFER_ODDS,
+                lowOdd,
+                segment.primes,
+                0);
+    }
+
+    private static SegmentKernel kernel(final String name) {
+        if ( "vector".equals(name) ) {
+            return SegmentKernels.vector()
+                                 .orElseThrow(() -> new IllegalStateException(
+                                         "The vector kernel is not available"));
+        }
+        return ScalarSegmentKernel.INSTANCE;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.prime.core;
+
+/**
+ * Functions of a positive integer that are calculated from its prime
+ * factorization n = p1^e1 * ... * pk^ek
+ */
+public enum ArithmeticFunction {
+
+    /** Euler's totient, the number of values in [1,n] coprime to n */
+    PHI("phi") {
+        @Override
+        public long apply(
+                final int n,
+                final int[] primes,
+                final int[] exponents,
+                final int distinct) {
+
+            // n * (1 - 1/p) for each p, every division is exact
+            long phi = n;
+            for ( int k = 0; k < distinct; k++ ) {
+                phi = phi / primes[k] * (primes[k] - 1);
+            }
+            return phi;
+        }
+    },
+
+    /** Möbius, 0 if n has a square factor, otherwise (-1)^k */
+    MU("mu") {
+        @Override
+        public long apply(
+                final int n,
+                final int[] primes,
+                final int[] exponents,
+                final int distinct) {
+
+            for ( int k = 0; k < distinct; k++ ) {
+                if ( exponents[k] > 1 ) {
+                    return 0;
+                }
+            }
+            return (distinct & 1) == 0 ? 1 : -1;
+        }
+    },
+
+    /** The sum of the divisors of n */
+    SIGMA("sigma") {
+        @Override
+        public long apply(
+                final int n,
+                final int[] primes,
+                final int[] exponents,
+                final int distinct) {
+
+            // 1 + p + ... + p^e for each p
+            long sigma = 1;
+            for ( int k = 0; k < distinct; k++ ) {
+                long power = 1;
+                long sum = 1;
+                for ( int e = 0; e < exponents[k]; e++ ) {
+                    power *= primes[k];
+                    sum += power;
+                }
+                sigma *= sum;
+            }
+            return sigma;
+        }
+    },
+
+    /** The number of divisors of n */
+    D("d") {
+        @Override
+        public long apply(
+                final int n,
+                final int[] primes,
+                final int[] exponents,
+                final int distinct) {
+
+            long d = 1;
+            for ( int k = 0; k < distinct; k++ ) {
+                d *= exponents[k] + 1;
+            }
+            return d;
+        }
+    };
+
+    private final String label;
+
+    private ArithmeticFunction(final String label) {
+        this.label = label;
+    }
+
+    /**
+     * Find the function with the given label
+     *
+     * @throws IllegalArgumentException if there is no such function
+     */
+    public static ArithmeticFunction forLabel(final String label) {
+        for ( final ArithmeticFunction function : values() ) {
+            if ( function.label.equals(label) ) {
+                return function;
+            }
+        }
+
+        throw new IllegalArgumentException(
+                label + " is not a supported function");
+    }
+
+    /**
+     * Name used to identify the function in requests and responses
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Calculate the function from the factorization of n, as produced by
+     * {@link FactorSegment#factorize(int, int[], int[])}
+     *
+     * @param n          the value
+     * @param primes     the distinct prime factors of n
+     * @param exponents  the exponent of each prime
+     * @param distinct   the number of distinct prime factors
+     */
+    public abstract long apply(
+            int n,
+            int[] primes,
+            int[] exponents,
+            int distinct);
+}
@@ -0,0 +1,135 @@
+package com.example.prime.core;
+
+import static java.util.Objects.nonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Factorizes every value in a range, a segment at a time, so that arithmetic
+ * functions can be calculated over ranges far larger than memory.
+ *
+ * A window of segments is factorized in parallel on the executor, then
+ * passed to the consumer in ascending order before the next window starts,
+ * so only the window is ever held in memory. The base primes come from a
+ * {@link SmallestFactorTable} up to sqrt(Integer.MAX_VALUE), built once by
+ * the {@link LinearSieve}.
+ */
+public class ArithmeticSieve {
+
+    /** Number of values factorized by each task, ~1MB of factors */
+    public static final int SEGMENT_SIZE = 1 << 15;
+
+    // every prime up to sqrt(INT_MAX), enough to factorize any int
+    private static final SmallestFactorTable BASE =
+            LinearSieve.smallestFactors(46341);
+
+    private final ExecutorService executor;
+
+    // number of segments factorized at once
+    private final int window;
+
+    /**
+     * Construct a new {@link ArithmeticSieve}
+     *
+     * @param executor  service that factorizes the segments
+     */
+    public ArithmeticSieve(final ExecutorService executor) {
+        this(executor, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construct a new {@link ArithmeticSieve}
+     *
+     * @param executor  service that factorizes the segments
+     * @param window    number of segments factorized at once
+     */
+    public ArithmeticSieve(final ExecutorService executor, final int window) {
+        nonNull(executor);
+
+        if ( window < 1 ) {
+            throw new IllegalArgumentException("The window must be at least 1");
+        }
+
+        this.executor = executor;
+        this.window = window;
+    }
+
+    /**
+     * Factorize every value in the range [from,to], passing the segments to
+     * the consumer in ascending order, on the calling thread
+     *
+     * @param consumer  receives each segment. Any exception it throws is
+     *                  passed on to the caller unchanged.
+     *
+     * @throws IllegalArgumentException if the range is empty or contains
+     *         values below 1
+     * @throws CalculationException if the calculation cannot be completed
+     */
+    public void forEachSegment(
+            final int from,
+            final int to,
+            final Consumer<FactorSegment> consumer) throws CalculationException {
+
+        checkRange(from, to);
+
+        for ( long first = from; first <= to; first += (long) window * SEGMENT_SIZE ) {
+            final List<Callable<FactorSegment>> segments = new ArrayList<>(window);
+
+            for ( long low = first;
+                  low <= to && low < first + (long) window * SEGMENT_SIZE;
+                  low += SEGMENT_SIZE ) {
+
+                final int lowerBound = (int) low;
+                final int upperBound = (int) Math.min(to, low + SEGMENT_SIZE - 1);
+                segments.add(() -> new FactorSegment(BASE, lowerBound, upperBound));
+            }
+
+            final List<Future<FactorSegment>> factorized;
+            try {
+                factorized = executor.invokeAll(segments);
+            }
+            catch ( final InterruptedException ex ) {
+                throw new CalculationException(ex);
+            }
+
+            for ( final Future<FactorSegment> segment : factorized ) {
+                final FactorSegment factors;
+                try {
+                    factors = segment.get();
+                }
+                catch ( final InterruptedException | ExecutionException ex ) {
+                    throw new CalculationException(ex);
+                }
+
+                consumer.accept(factors);
+            }
+        }
+    }
+
+    /**
+     * Check that a range can be factorized
+     *
+     * @throws IllegalArgumentException if the range is empty or contains
+     *         values below 1
+     */
+    public static void checkRange(final int from, final int to) {
+        if ( from < 1 ) {
+            throw new IllegalArgumentException("from must be at least 1");
+        }
+        if ( from > to ) {
+            throw new IllegalArgumentException(
+                    "The range [" + from + "," + to + "] is empty");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+}
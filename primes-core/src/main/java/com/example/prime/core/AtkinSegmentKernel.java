@@ -0,0 +1,202 @@
+package com.example.prime.core;
+
+import java.util.Arrays;
+
+/**
+ * A {@link SegmentKernel} that sieves with the Sieve of Atkin instead of the
+ * Sieve of Eratosthenes.
+ *
+ * A square-free n coprime to 6 is prime if, and only if, one of these has an
+ * odd number of solutions in positive integers x and y:
+ * <li> 4x² + y² = n, when n mod 12 is 1 or 5
+ * <li> 3x² + y² = n, when n mod 12 is 7
+ * <li> 3x² - y² = n with x &gt; y, when n mod 12 is 11
+ *
+ * Each segment starts empty, every solution of the form for its residue
+ * toggles the bit of n, then the odd multiples of the squares of the base
+ * primes are cleared. Rather than testing n mod 12, x and y are restricted to
+ * the residues that produce it, so every toggle is useful.
+ *
+ * The base primes only reach sqrt(Integer.MAX_VALUE), so segments must lie
+ * below Integer.MAX_VALUE.
+ */
+public class AtkinSegmentKernel extends ScalarSegmentKernel {
+
+    /** Shared instance, the kernel holds no state */
+    public static final AtkinSegmentKernel INSTANCE = new AtkinSegmentKernel();
+
+    @Override
+    public void sieve(
+            final int[] basePrimes,
+            final long lowOdd,
+            final int count,
+            final long[] words) {
+
+        final long highOdd = lowOdd + 2L * (count - 1);
+
+        Arrays.fill(words, 0, (count + 63) >>> 6, 0L);
+
+        toggleFirstForm(lowOdd, highOdd, words);
+        toggleSecondForm(lowOdd, highOdd, words);
+        toggleThirdForm(lowOdd, highOdd, words);
+
+        clearSquareMultiples(basePrimes, lowOdd, highOdd, words);
+
+        // 3 divides 12, so none of the forms produce it
+        if ( lowOdd <= 3 && highOdd >= 3 ) {
+            final int i = (int) ((3 - lowOdd) >>> 1);
+            words[i >>> 6] |= 1L << i;
+        }
+    }
+
+    /**
+     * 4x² + y² is 1 or 5 mod 12 when y is odd and x and y aren't both
+     * multiples of 3
+     */
+    private static void toggleFirstForm(
+            final long lowOdd,
+            final long highOdd,
+            final long[] words) {
+
+        // the first odd y that reaches the segment, which only gets smaller
+        // as x grows
+        long first = ceilSqrt(Math.max(lowOdd - 4, 1)) | 1;
+
+        for ( long x = 1; 4 * x * x + 1 <= highOdd; x++ ) {
+            final long base = 4 * x * x;
+            final boolean skipThrees = x % 3 == 0;
+
+            while ( first > 1 && base + (first - 2) * (first - 2) >= lowOdd ) {
+                first -= 2;
+            }
+
+            // (y + 2)² = y² + 4y + 4
+            long y = first;
+            for ( long n = base + y * y; n <= highOdd; n += 4 * y + 4, y += 2 ) {
+                if ( !skipThrees || y % 3 != 0 ) {
+                    toggle(n, lowOdd, words);
+                }
+            }
+        }
+    }
+
+    /**
+     * 3x² + y² is 7 mod 12 when x is odd, y is even and y isn't a multiple
+     * of 3
+     */
+    private static void toggleSecondForm(
+            final long lowOdd,
+            final long highOdd,
+            final long[] words) {
+
+        // the first even y that reaches the segment, which only gets smaller
+        // as x grows
+        long first = ceilSqrt(Math.max(lowOdd - 3, 4));
+        first += first & 1;
+
+        for ( long x = 1; 3 * x * x + 4 <= highOdd; x += 2 ) {
+            final long base = 3 * x * x;
+
+            while ( first > 2 && base + (first - 2) * (first - 2) >= lowOdd ) {
+                first -= 2;
+            }
+
+            long y = first;
+            for ( long n = base + y * y; n <= highOdd; n += 4 * y + 4, y += 2 ) {
+                if ( y % 3 != 0 ) {
+                    toggle(n, lowOdd, words);
+                }
+            }
+        }
+    }
+
+    /**
+     * 3x² - y² is 11 mod 12 when exactly one of x and y is odd and y isn't a
+     * multiple of 3
+     */
+    private static void toggleThirdForm(
+            final long lowOdd,
+            final long highOdd,
+            final long[] words) {
+
+        // the smallest y that is within the segment, larger values of y give
+        // smaller values of n. It only gets larger as x grows.
+        long first = 1;
+
+        // the smallest value of the form, when y = x - 1, is 2x² + 2x - 1
+        for ( long x = 2; 2 * x * x + 2 * x - 1 <= highOdd; x++ ) {
+            final long base = 3 * x * x;
+
+            while ( base - first * first > highOdd ) {
+                first++;
+            }
+
+            // y must have the other parity to x
+            long y = first + ((x + first + 1) & 1);
+
+            // (y + 2)² = y² + 4y + 4
+            for ( long n = base - y * y;
+                  y < x && n >= lowOdd;
+                  n -= 4 * y + 4, y += 2 ) {
+
+                if ( y % 3 != 0 ) {
+                    toggle(n, lowOdd, words);
+                }
+            }
+        }
+    }
+
+    /**
+     * The forms can't tell primes from products of a prime and a square,
+     * clear the odd multiples of the square of every prime from 5 up
+     */
+    private static void clearSquareMultiples(
+            final int[] basePrimes,
+            final long lowOdd,
+            final long highOdd,
+            final long[] words) {
+
+        for ( final int prime : basePrimes ) {
+            final long square = (long) prime * prime;
+            if ( square > highOdd ) {
+                break;
+            }
+            if ( prime < 5 ) {
+                continue;
+            }
+
+            long multiple = ((lowOdd + square - 1) / square) * square;
+            if ( (multiple & 1) == 0 ) {
+                multiple += square;
+            }
+
+            for ( ; multiple <= highOdd; multiple += 2 * square ) {
+                final int i = (int) ((multiple - lowOdd) >>> 1);
+                words[i >>> 6] &= ~(1L << i);
+            }
+        }
+    }
+
+    private static void toggle(
+            final long n,
+            final long lowOdd,
+            final long[] words) {
+
+        final int i = (int) ((n - lowOdd) >>> 1);
+        words[i >>> 6] ^= 1L << i;
+    }
+
+    /**
+     * The smallest r such that r² &gt;= value
+     */
+    private static long ceilSqrt(final long value) {
+        long root = (long) Math.sqrt(value);
+        while ( root * root < value ) {
+            root++;
+        }
+        while ( root > 0 && (root - 1) * (root - 1) >= value ) {
+            root--;
+        }
+        return root;
+    }
+}
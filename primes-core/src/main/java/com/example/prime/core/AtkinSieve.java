@@ -0,0 +1,24 @@
+package com.example.prime.core;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Calculates primes using a segmented Sieve of Atkin that can use multiple
+ * threads.
+ *
+ * The range is split into the same bitmaps of odd values as the
+ * {@link SegmentedSieve}, and the solutions of the quadratic forms in each
+ * bitmap are enumerated by {@link AtkinSegmentKernel} on whichever thread
+ * takes it, so the enumeration is spread across the executor.
+ */
+public class AtkinSieve extends SegmentedSieve {
+
+    /**
+     * Construct a new {@link AtkinSieve}
+     *
+     * @param executor service that executes the segment calculations
+     */
+    public AtkinSieve(final ExecutorService executor) {
+        super(executor, AtkinSegmentKernel.INSTANCE);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.prime.core;
+
+import java.util.Arrays;
+
+/**
+ * The odd primes needed to sieve segments of long values, extended on demand
+ * and shared by every {@link PrimeSpliterator}.
+ *
+ * Starts with the primes up to sqrt(Integer.MAX_VALUE) and grows by sieving
+ * further odd values with the primes it already holds. The primes up to
+ * Integer.MAX_VALUE are enough to sieve any value up to
+ * {@link PrimeStream#MAX_VALUE}, but take ~400MB.
+ */
+final class BasePrimes {
+
+    private static final SegmentKernel KERNEL = ScalarSegmentKernel.INSTANCE;
+
+    // every odd prime up to limit, replaced as a whole when extended
+    private static volatile Snapshot snapshot =
+            new Snapshot(SegmentedSieve.basePrimes(), 46341);
+
+    private BasePrimes() {}
+
+    /**
+     * Odd primes in ascending order, including every one up to the square
+     * root of value
+     *
+     * @param value  largest value that will be sieved, at most
+     *               {@link PrimeStream#MAX_VALUE}
+     */
+    static int[] covering(final long value) {
+        final long root = sqrt(value);
+
+        final Snapshot current = snapshot;
+        if ( root <= current.limit ) {
+            return current.primes;
+        }
+
+        return extend(root);
+    }
+
+    /**
+     * The largest long whose square is no larger than value
+     */
+    static long sqrt(final long value) {
+        long root = (long) Math.sqrt(value);
+
+        // correct any rounding in the floating point root
+        while ( root * root > value ) {
+            root--;
+        }
+        while ( (root + 1) * (root + 1) <= value ) {
+            root++;
+        }
+        return root;
+    }
+
+    /**
+     * Sieve more odd values until every prime up to root is included. The
+     * limit at least doubles each time so that a stream that climbs slowly
+     * doesn't extend it for every segment.
+     */
+    private static synchronized int[] extend(final long root) {
+        Snapshot current = snapshot;
+
+        while ( current.limit < root ) {
+            // the primes held can sieve values up to the square of the limit
+            final long limit =
+                    Math.min(
+                        Integer.MAX_VALUE,
+                        Math.min(
+                            current.limit * current.limit,
+                            Math.max(root, 2 * current.limit)));
+
+            int[] primes = current.primes;
+            int size = primes.length;
+
+            final long[] words = new long[SegmentedSieve.BUFFER_ODDS / 64];
+
+            for ( long lowOdd = (current.limit + 1) | 1;
+                  lowOdd <= limit;
+                  lowOdd += 2L * SegmentedSieve.BUFFER_ODDS ) {
+
+                final int count =
+                        (int) Math.min(
+                                SegmentedSieve.BUFFER_ODDS,
+                                (limit - lowOdd) / 2 + 1);
+
+                KERNEL.sieve(current.primes, lowOdd, count, words);
+
+                final int found = KERNEL.count(words, count);
+                if ( size + found > primes.length ) {
+                    primes = Arrays.copyOf(
+                                primes,
+                                Math.max(size + found, 2 * primes.length));
+                }
+
+                size += KERNEL.extract(words, count, lowOdd, primes, size);
+            }
+
+            current = new Snapshot(Arrays.copyOf(primes, size), limit);
+        }
+
+        snapshot = current;
+        return current.primes;
+    }
+
+    /**
+     * The primes, and the value up to which they are complete
+     */
+    private static final class Snapshot {
+
+        final int[] primes;
+        final long limit;
+
+        Snapshot(final int[] primes, final long limit) {
+            this.primes = primes;
+            this.limit = limit;
+        }
+    }
+}
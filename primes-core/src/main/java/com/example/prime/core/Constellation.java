@@ -0,0 +1,74 @@
+package com.example.prime.core;
+
+/**
+ * Patterns of closely spaced primes, described by the offset of each member
+ * from the smallest member.
+ */
+public enum Constellation {
+
+    /** p, p+2 */
+    TWIN("twin", 0, 2),
+
+    /** p, p+4 */
+    COUSIN("cousin", 0, 4),
+
+    /** p, p+6 */
+    SEXY("sexy", 0, 6),
+
+    /** p, p+2, p+6 */
+    TRIPLET_A("triplet-a", 0, 2, 6),
+
+    /** p, p+4, p+6 */
+    TRIPLET_B("triplet-b", 0, 4, 6),
+
+    /** p, p+2, p+6, p+8 */
+    QUADRUPLET("quadruplet", 0, 2, 6, 8);
+
+    /** Largest distance between the first and last member of any pattern */
+    public static final int MAX_WIDTH = 8;
+
+    private final String label;
+    private final int[] offsets;
+
+    private Constellation(final String label, final int... offsets) {
+        this.label = label;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Find the constellation with the given label
+     *
+     * @throws IllegalArgumentException if there is no such constellation
+     */
+    public static Constellation forLabel(final String label) {
+        for ( final Constellation constellation : values() ) {
+            if ( constellation.label.equals(label) ) {
+                return constellation;
+            }
+        }
+
+        throw new IllegalArgumentException(
+                label + " is not a supported constellation");
+    }
+
+    /**
+     * Name used to identify the constellation in requests and responses
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Distance between the first and last member of the pattern
+     */
+    public int width() {
+        return offsets[offsets.length - 1];
+    }
+
+    /**
+     * Offset of each member from the first, in ascending order
+     */
+    int[] offsets() {
+        return offsets;
+    }
+}
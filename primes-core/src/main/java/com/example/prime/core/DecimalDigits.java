@@ -0,0 +1,67 @@
+package com.example.prime.core;
+
+/**
+ * Writes the decimal digits of ints straight into a byte[], two digits at a
+ * time from a table, without creating a String for each value
+ */
+public final class DecimalDigits {
+
+    /** The most digits written for a non-negative int */
+    public static final int MAX_DIGITS = 10;
+
+    // the two digits of every value in [0,100)
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+    static {
+        for ( int i = 0; i < 100; i++ ) {
+            DIGIT_PAIRS[2 * i] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[2 * i + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private DecimalDigits() {}
+
+    /**
+     * Write the decimal digits of a non-negative value into the buffer, which
+     * must have room for {@link #MAX_DIGITS} digits
+     *
+     * @return the position after the last digit
+     */
+    public static int format(final int value, final byte[] buffer, final int position) {
+        final int end = position + digits(value);
+
+        int remaining = value;
+        int i = end;
+        while ( remaining >= 100 ) {
+            final int quotient = remaining / 100;
+            final int pair = 2 * (remaining - quotient * 100);
+            remaining = quotient;
+
+            buffer[--i] = DIGIT_PAIRS[pair + 1];
+            buffer[--i] = DIGIT_PAIRS[pair];
+        }
+
+        if ( remaining >= 10 ) {
+            buffer[--i] = DIGIT_PAIRS[2 * remaining + 1];
+            buffer[--i] = DIGIT_PAIRS[2 * remaining];
+        }
+        else {
+            buffer[--i] = (byte) ('0' + remaining);
+        }
+
+        return end;
+    }
+
+    /**
+     * The number of decimal digits in a non-negative value
+     */
+    private static int digits(final int value) {
+        if ( value < 100000 ) {
+            return value < 100
+                    ? (value < 10 ? 1 : 2)
+                    : (value < 1000 ? 3 : value < 10000 ? 4 : 5);
+        }
+        return value < 10000000
+                ? (value < 1000000 ? 6 : 7)
+                : (value < 100000000 ? 8 : value < 1000000000 ? 9 : 10);
+    }
+}
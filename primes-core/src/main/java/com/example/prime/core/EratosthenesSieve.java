@@ -9,7 +9,7 @@ import java.util.List;
 /**
  * Calculates primes using the Sieve of Eratosthenes algorithm
  */
-public class EratosthenesSieve implements PrimeSupplier {
+public class EratosthenesSieve implements PrimeSupplier, HeapEstimator {
 
     @Override
     public List<Integer> primesUpTo(final int upperBound) throws CalculationException {
@@ -44,6 +44,15 @@ public class EratosthenesSieve implements PrimeSupplier {
                          .collect(toCollection(()->primes));
     }
 
+    @Override
+    public long estimateHeapBytes(final int upperBound) {
+        // bitset of every candidate and a presized list of boxed primes
+        final long primes = HeapEstimator.primeCountUpperBound(upperBound);
+
+        return (upperBound + 1L) / 8
+                + primes * (BOXED_INTEGER_BYTES + REFERENCE_BYTES);
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName();
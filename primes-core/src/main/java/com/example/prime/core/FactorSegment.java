@@ -0,0 +1,169 @@
+package com.example.prime.core;
+
+import java.util.Arrays;
+
+/**
+ * The prime factorization of every value in a range [from,to].
+ *
+ * Each value is divided by every prime up to sqrt(to) that divides it, found
+ * by stepping through the multiples of the prime as in a sieve. What is left
+ * of a value afterwards is 1 or a prime larger than sqrt(to). The factors of
+ * each value are kept as a linked list of (prime, exponent) entries in shared
+ * arrays, in ascending order of the primes, which needs ~3 entries per value.
+ */
+public final class FactorSegment {
+
+    private final int from;
+    private final int to;
+
+    // the first entry of each value, -1 for 1
+    private final int[] first;
+
+    // the entries, linked through next, -1 at the end of a list
+    private int[] entryPrimes;
+    private byte[] entryExponents;
+    private int[] next;
+    private int size;
+
+    /**
+     * Factorize the values in the range [from,to]
+     *
+     * @param base  provides the primes up to at least sqrt(to)
+     *
+     * @throws IllegalArgumentException if the range is empty, contains values
+     *         below 1 or the base table is too small
+     */
+    FactorSegment(final SmallestFactorTable base, final int from, final int to) {
+        if ( from < 1 || from > to ) {
+            throw new IllegalArgumentException(
+                    "[" + from + "," + to + "] is not a range of positive values");
+        }
+        if ( (long) base.bound() * base.bound() < to ) {
+            throw new IllegalArgumentException(
+                    "The base primes must reach sqrt(" + to + ")");
+        }
+
+        this.from = from;
+        this.to = to;
+
+        final int count = to - from + 1;
+        first = new int[count];
+        Arrays.fill(first, -1);
+
+        final int[] last = new int[count];
+        final int[] remaining = new int[count];
+        for ( int i = 0; i < count; i++ ) {
+            remaining[i] = from + i;
+        }
+
+        entryPrimes = new int[2 * count];
+        entryExponents = new byte[2 * count];
+        next = new int[2 * count];
+
+        final IntList primes = base.primes();
+        for ( int k = 0; k < primes.size(); k++ ) {
+            final int prime = primes.getInt(k);
+            if ( (long) prime * prime > to ) {
+                break;
+            }
+
+            // the first multiple in the range
+            final long start = ((from - 1L + prime) / prime) * prime;
+            for ( long multiple = start; multiple <= to; multiple += prime ) {
+                final int i = (int) (multiple - from);
+
+                int value = remaining[i];
+                int exponent = 0;
+                do {
+                    value /= prime;
+                    exponent++;
+                } while ( value % prime == 0 );
+
+                remaining[i] = value;
+                append(i, prime, exponent, last);
+            }
+        }
+
+        // anything left is a single large prime
+        for ( int i = 0; i < count; i++ ) {
+            if ( remaining[i] > 1 ) {
+                append(i, remaining[i], 1, last);
+            }
+        }
+    }
+
+    /**
+     * Smallest value in the segment
+     */
+    public int from() {
+        return from;
+    }
+
+    /**
+     * Largest value in the segment
+     */
+    public int to() {
+        return to;
+    }
+
+    /**
+     * Copy the factorization of n into distinct primes and their exponents,
+     * in ascending order of the primes. 1 has no factors.
+     *
+     * @param n          value to factorize
+     * @param primes     receives the distinct prime factors, must have room
+     *                   for {@link SmallestFactorTable#MAX_DISTINCT_FACTORS}
+     * @param exponents  receives the exponent of each prime
+     *
+     * @return the number of distinct prime factors
+     *
+     * @throws IllegalArgumentException if n is outside the segment
+     */
+    public int factorize(
+            final int n,
+            final int[] primes,
+            final int[] exponents) {
+
+        if ( n < from || n > to ) {
+            throw new IllegalArgumentException(
+                    n + " is outside the range [" + from + "," + to + "]");
+        }
+
+        int distinct = 0;
+        for ( int e = first[n - from]; e >= 0; e = next[e] ) {
+            primes[distinct] = entryPrimes[e];
+            exponents[distinct] = entryExponents[e];
+            distinct++;
+        }
+        return distinct;
+    }
+
+    /**
+     * Add a prime factor to the end of a value's list
+     */
+    private void append(
+            final int i,
+            final int prime,
+            final int exponent,
+            final int[] last) {
+
+        if ( size == next.length ) {
+            entryPrimes = Arrays.copyOf(entryPrimes, 2 * size);
+            entryExponents = Arrays.copyOf(entryExponents, 2 * size);
+            next = Arrays.copyOf(next, 2 * size);
+        }
+
+        entryPrimes[size] = prime;
+        entryExponents[size] = (byte) exponent;
+        next[size] = -1;
+
+        if ( first[i] < 0 ) {
+            first[i] = size;
+        }
+        else {
+            next[last[i]] = size;
+        }
+        last[i] = size;
+        size++;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.prime.core;
+
+import static java.util.Objects.nonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Factorizes 64-bit numbers.
+ *
+ * Small factors are removed by trial division using a cached table of small
+ * primes. Whatever remains is tested with a deterministic Miller-Rabin test
+ * and split with Brent's variant of Pollard's rho algorithm.
+ *
+ * Thread-safe once constructed.
+ */
+public class Factorizer {
+
+    /** Default largest prime used for trial division */
+    public static final int DEFAULT_TRIAL_BOUND = 1 << 16;
+
+    // Miller-Rabin bases that give a deterministic result for every n < 2^64
+    private static final long[] MILLER_RABIN_BASES =
+        { 2, 325, 9375, 28178, 450775, 9780504, 1795265022 };
+
+    // number of steps between gcd calculations in Brent's algorithm
+    private static final int BRENT_BATCH = 128;
+
+    private final int[] smallPrimes;
+
+    // Any unfactored remainder below this is prime
+    private final long trialLimitSquared;
+
+    /**
+     * Construct a new {@link Factorizer}
+     *
+     * @param primeSupplier  calculates the table of small primes
+     * @param trialBound     largest prime to use for trial division
+     *
+     * @throws CalculationException if the table of small primes cannot be
+     *         calculated
+     */
+    public Factorizer(
+            final PrimeSupplier primeSupplier,
+            final int trialBound) throws CalculationException {
+
+        nonNull(primeSupplier);
+
+        if ( trialBound < 2 ) {
+            throw new IllegalArgumentException(
+                    "The trial bound must be at least 2");
+        }
+
+        this.smallPrimes =
+                primeSupplier.primesUpTo(trialBound)
+                             .stream()
+                             .mapToInt(Integer::intValue)
+                             .toArray();
+
+        final long largest = smallPrimes[smallPrimes.length - 1];
+        this.trialLimitSquared = largest * largest;
+    }
+
+    /**
+     * Find the prime factors of n
+     *
+     * @param n the number to factorize, must be at least 2
+     *
+     * @return the prime factors of n in ascending order, repeated factors
+     *         appear once per occurrence
+     */
+    public List<Long> factor(final long n) {
+        if ( n < 2 ) {
+            throw new IllegalArgumentException(
+                    "Only numbers greater than 1 can be factorized");
+        }
+
+        final List<Long> factors = new ArrayList<>();
+        long remainder = n;
+
+        for ( final int p : smallPrimes ) {
+            if ( (long) p * p > remainder ) {
+                break;
+            }
+            while ( remainder % p == 0 ) {
+                factors.add((long) p);
+                remainder /= p;
+            }
+        }
+
+        if ( remainder > 1 ) {
+            if ( remainder < trialLimitSquared ) {
+                // trial division has removed every factor below sqrt()
+                factors.add(remainder);
+            }
+            else {
+                factorLarge(remainder, factors);
+            }
+        }
+
+        Collections.sort(factors);
+        return factors;
+    }
+
+    /**
+     * Deterministic primality test for any long
+     */
+    public boolean isPrime(final long n) {
+        if ( n < 2 ) {
+            return false;
+        }
+
+        if ( n <= smallPrimes[smallPrimes.length - 1] ) {
+            return Arrays.binarySearch(smallPrimes, (int) n) >= 0;
+        }
+
+        // Cheap rejection of most composites before the Miller-Rabin test
+        for ( int i = 0; i < smallPrimes.length && i < 64; i++ ) {
+            if ( n % smallPrimes[i] == 0 ) {
+                return false;
+            }
+        }
+
+        return isProbablePrime(new Montgomery(n));
+    }
+
+    /**
+     * Factorize a number that has no factors in the small primes table
+     */
+    private void factorLarge(final long n, final List<Long> factors) {
+        final Montgomery mod = new Montgomery(n);
+
+        if ( isProbablePrime(mod) ) {
+            factors.add(n);
+        }
+        else {
+            final long divisor = brent(mod);
+            factorLarge(divisor, factors);
+            factorLarge(n / divisor, factors);
+        }
+    }
+
+    /**
+     * Miller-Rabin test using bases that are known to be deterministic for
+     * all 64-bit values.
+     */
+    private static boolean isProbablePrime(final Montgomery mod) {
+        final long n = mod.modulus();
+        final long one = mod.one();
+        final long minusOne = n - one;
+
+        // n - 1 == d * 2^s with d odd
+        final int s = Long.numberOfTrailingZeros(n - 1);
+        final long d = (n - 1) >>> s;
+
+        witness:for ( final long base : MILLER_RABIN_BASES ) {
+            if ( base % n == 0 ) {
+                continue;
+            }
+
+            long x = mod.pow(mod.toMontgomery(base), d);
+
+            if ( x == one || x == minusOne ) {
+                continue;
+            }
+
+            for ( int r = 1; r < s; r++ ) {
+                x = mod.multiply(x, x);
+                if ( x == minusOne ) {
+                    continue witness;
+                }
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Brent's variant of Pollard's rho algorithm
+     *
+     * @param mod arithmetic for an odd composite number
+     *
+     * @return a non-trivial divisor of the modulus
+     */
+    private static long brent(final Montgomery mod) {
+        final long n = mod.modulus();
+
+        for ( long c = 1; ; c++ ) {
+            final long increment = mod.toMontgomery(c);
+
+            long y = mod.toMontgomery(2);
+            long x = y;
+            long ys = y;
+            long q = mod.one();
+            long g = 1;
+
+            for ( long r = 1; g == 1; r <<= 1 ) {
+                x = y;
+                for ( long i = 0; i < r; i++ ) {
+                    y = mod.add(mod.multiply(y, y), increment);
+                }
+
+                for ( long k = 0; k < r && g == 1; k += BRENT_BATCH ) {
+                    ys = y;
+                    for ( long i = 0; i < Math.min(BRENT_BATCH, r - k); i++ ) {
+                        y = mod.add(mod.multiply(y, y), increment);
+                        q = mod.multiply(q, Math.abs(x - y));
+                    }
+                    g = gcd(q, n);
+                }
+            }
+
+            if ( g == n ) {
+                // The batch overshot, step through it one value at a time
+                do {
+                    ys = mod.add(mod.multiply(ys, ys), increment);
+                    g = gcd(Math.abs(x - ys), n);
+                } while ( g == 1 );
+            }
+
+            if ( g != n ) {
+                return g;
+            }
+            // otherwise the cycle failed, try another polynomial
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while ( b != 0 ) {
+            final long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
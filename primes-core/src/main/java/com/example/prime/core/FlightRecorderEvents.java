@@ -0,0 +1,28 @@
+package com.example.prime.core;
+
+/**
+ * Whether this JVM has the JDK Flight Recorder event API (Java 8u262 or
+ * later, or Java 11 or later).
+ *
+ * The event classes extend jdk.jfr.Event, so they are only created when the
+ * API is available. Events that would otherwise be created for every segment
+ * are only created while they are being recorded, and are then reused.
+ */
+public final class FlightRecorderEvents {
+
+    /** true if events can be created and recorded */
+    public static final boolean AVAILABLE = isAvailable();
+
+    private FlightRecorderEvents() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        }
+        catch ( final ClassNotFoundException | LinkageError ex ) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.prime.core;
+
+/**
+ * Implemented by {@link PrimeSupplier}s that can predict the peak amount of
+ * heap needed to calculate a list of primes, so that callers can avoid
+ * running out of memory.
+ *
+ * Estimates assume compressed object pointers, which the JVM uses by default
+ * for heaps smaller than 32GB.
+ */
+public interface HeapEstimator {
+
+    /** Returned when the heap usage cannot be estimated */
+    long UNKNOWN = -1;
+
+    /** Size of a boxed {@link Integer} */
+    long BOXED_INTEGER_BYTES = 16;
+
+    /** Size of an object reference */
+    long REFERENCE_BYTES = 4;
+
+    /**
+     * Predict the peak heap needed by the calculation, including the result
+     *
+     * @param upperBound the largest value that may appear in the list
+     *
+     * @return approximate number of bytes, or {@link #UNKNOWN}
+     */
+    long estimateHeapBytes(int upperBound);
+
+    /**
+     * An upper bound on the number of primes up to n, using Dusart's bound
+     * pi(n) &lt;= n/ln(n) * (1 + 1.2762/ln(n)) for n &gt; 1.
+     */
+    static long primeCountUpperBound(final int n) {
+        if ( n < 17 ) {
+            return Math.max(0, n);
+        }
+
+        final double log = Math.log(n);
+        return (long) Math.ceil(n / log * (1 + 1.2762 / log));
+    }
+
+    /**
+     * Heap used by a list of n boxed primes in an {@link java.util.ArrayList}
+     * that has grown by appending, so may be up to 50% larger than needed.
+     */
+    static long grownListBytes(final long n) {
+        return n * BOXED_INTEGER_BYTES + (n * REFERENCE_BYTES * 3) / 2;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.prime.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * An unmodifiable {@link java.util.List} view of the start of an int[], so
+ * that a calculation can fill a primitive array without boxing every value.
+ * Values are only boxed when read through {@link #get(int)}.
+ */
+public final class IntList extends AbstractList<Integer> implements RandomAccess {
+
+    private final int[] values;
+    private final int size;
+
+    /**
+     * Construct a new {@link IntList}. The array is not copied, so it must
+     * not be modified afterwards.
+     *
+     * @param values  array holding the values
+     * @param size    number of values at the start of the array to include
+     */
+    public IntList(final int[] values, final int size) {
+        if ( size < 0 || size > values.length ) {
+            throw new IllegalArgumentException(
+                    "size must be in the range [0," + values.length + "]");
+        }
+
+        this.values = values;
+        this.size = size;
+    }
+
+    @Override
+    public Integer get(final int index) {
+        return getInt(index);
+    }
+
+    /**
+     * The value at index, without boxing
+     */
+    public int getInt(final int index) {
+        if ( index < 0 || index >= size ) {
+            throw new IndexOutOfBoundsException(
+                    "Index: " + index + ", Size: " + size);
+        }
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Pass every value to the consumer in order, without boxing
+     */
+    public void forEachInt(final IntConsumer consumer) {
+        for ( int i = 0; i < size; i++ ) {
+            consumer.accept(values[i]);
+        }
+    }
+
+    /**
+     * A copy of the values
+     */
+    public int[] toIntArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
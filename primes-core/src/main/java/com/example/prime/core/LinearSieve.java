@@ -0,0 +1,81 @@
+package com.example.prime.core;
+
+import java.util.List;
+
+/**
+ * Calculates primes using the linear sieve of Euler, which also finds the
+ * smallest prime factor of every value.
+ *
+ * Each composite c is crossed off exactly once, as p*i where p is the
+ * smallest prime factor of c, by only multiplying i by the primes up to its
+ * own smallest factor. The sieve takes O(n) time rather than
+ * O(n log log n), at the cost of a table of factors instead of a bitmap.
+ */
+public class LinearSieve implements PrimeSupplier, HeapEstimator {
+
+    @Override
+    public List<Integer> primesUpTo(final int upperBound) throws CalculationException {
+
+        if ( upperBound <= 1 ) {
+            throw new IllegalArgumentException("There are no primes below 2");
+        }
+
+        return smallestFactors(upperBound).primes();
+    }
+
+    /**
+     * Find the smallest prime factor of every value up to bound
+     *
+     * @throws IllegalArgumentException if bound is less than 1
+     */
+    public static SmallestFactorTable smallestFactors(final int bound) {
+        if ( bound < 1 ) {
+            throw new IllegalArgumentException("The bound must be at least 1");
+        }
+
+        // only odd values are stored, 0 until a factor is found
+        final char[] oddFactors = new char[bound / 2 + 1];
+
+        final int[] primes = new int[(int) HeapEstimator.primeCountUpperBound(bound)];
+        int count = 0;
+        if ( bound >= 2 ) {
+            primes[count++] = 2;
+        }
+
+        // a long counter, so that it doesn't wrap past Integer.MAX_VALUE
+        for ( long value = 3; value <= bound; value += 2 ) {
+            final int i = (int) value;
+            final int factor = oddFactors[i >>> 1];
+            final int smallest = factor == 0 ? i : factor;
+
+            if ( factor == 0 ) {
+                primes[count++] = i;
+            }
+
+            // i times each odd prime up to its smallest factor has that prime
+            // as its smallest factor. The product is odd, and the prime is at
+            // most sqrt(bound) so fits into a char.
+            for ( int k = 1; k < count; k++ ) {
+                final int prime = primes[k];
+                if ( prime > smallest || (long) prime * i > bound ) {
+                    break;
+                }
+                oddFactors[(prime * i) >>> 1] = (char) prime;
+            }
+        }
+
+        return new SmallestFactorTable(bound, oddFactors, primes, count);
+    }
+
+    @Override
+    public long estimateHeapBytes(final int upperBound) {
+        // a char for every odd value and an int for every prime
+        return (upperBound / 2 + 1L) * Character.BYTES
+                + HeapEstimator.primeCountUpperBound(upperBound) * Integer.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+}
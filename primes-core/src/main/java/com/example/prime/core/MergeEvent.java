@@ -0,0 +1,49 @@
+package com.example.prime.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Writing the primes of a sieved bitmap into the shared result, including
+ * the wait for the bitmaps below it to be counted
+ */
+@Name("com.example.prime.Merge")
+@Label("Merge Segment")
+@Category({ "Primes", "Sieve" })
+@Description("Waiting for the offset of a bitmap's primes, then writing them "
+                + "into the result")
+@StackTrace(false)
+final class MergeEvent extends jdk.jfr.Event {
+
+    private static final EventType TYPE = EventType.getEventType(MergeEvent.class);
+
+    @Label("Segment")
+    @Description("Index of the bitmap within the calculation")
+    int segment;
+
+    @Label("Offset")
+    @Description("Index in the result of the bitmap's first prime")
+    int offset;
+
+    @Label("Primes")
+    int primes;
+
+    @Label("Waited")
+    @Description("Time spent waiting for the bitmaps below to be counted")
+    @Timespan(Timespan.NANOSECONDS)
+    long waited;
+
+    /**
+     * An event to reuse for each segment's merge of a task, or null if nothing is
+     * recording them, so that no event is allocated per segment. Reused
+     * events must call end() before shouldCommit().
+     */
+    static MergeEvent forTask() {
+        return TYPE.isEnabled() ? new MergeEvent() : null;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.prime.core;
+
+/**
+ * Modular arithmetic for an odd 63-bit modulus using Montgomery
+ * multiplication, which avoids 128-bit division.
+ *
+ * Values passed to and returned by {@link #multiply(long, long)},
+ * {@link #add(long, long)} and {@link #pow(long, long)} are in Montgomery
+ * form, i.e. a*2^64 mod n. Use {@link #toMontgomery(long)} and
+ * {@link #fromMontgomery(long)} to convert.
+ */
+final class Montgomery {
+
+    private static final long LOW_32_BITS = 0xFFFFFFFFL;
+
+    private final long modulus;
+
+    // -modulus^-1 mod 2^64
+    private final long negativeInverse;
+
+    // 2^64 mod modulus, i.e. 1 in Montgomery form
+    private final long one;
+
+    // 2^128 mod modulus, used to convert into Montgomery form
+    private final long rSquared;
+
+    /**
+     * @param modulus an odd number in the range [3, Long.MAX_VALUE]
+     */
+    Montgomery(final long modulus) {
+        if ( modulus < 3 || (modulus & 1) == 0 ) {
+            throw new IllegalArgumentException(
+                    "The modulus must be odd and greater than 1");
+        }
+
+        this.modulus = modulus;
+
+        // Newton's iteration, each step doubles the number of correct bits.
+        // An odd number is its own inverse mod 8, so 5 steps give 96 bits.
+        long inverse = modulus;
+        for ( int i = 0; i < 5; i++ ) {
+            inverse *= 2 - modulus * inverse;
+        }
+        this.negativeInverse = -inverse;
+
+        // 2^64 mod n == (2^64 - n) mod n, and 2^64 - n is -n when unsigned
+        this.one = Long.remainderUnsigned(-modulus, modulus);
+
+        // Double 2^64 mod n another 64 times. modulus < 2^63 so the doubled
+        // value always fits into 64 unsigned bits.
+        long r2 = one;
+        for ( int i = 0; i < 64; i++ ) {
+            r2 = reduceOnce(r2 << 1);
+        }
+        this.rSquared = r2;
+    }
+
+    long modulus() {
+        return modulus;
+    }
+
+    /**
+     * 1 in Montgomery form
+     */
+    long one() {
+        return one;
+    }
+
+    long toMontgomery(final long value) {
+        return multiply(Long.remainderUnsigned(value, modulus), rSquared);
+    }
+
+    long fromMontgomery(final long value) {
+        return reduce(0, value);
+    }
+
+    long multiply(final long a, final long b) {
+        return reduce(multiplyHighUnsigned(a, b), a * b);
+    }
+
+    long add(final long a, final long b) {
+        return reduceOnce(a + b);
+    }
+
+    long pow(final long base, final long exponent) {
+        long result = one;
+        long square = base;
+
+        for ( long e = exponent; e != 0; e >>>= 1 ) {
+            if ( (e & 1) != 0 ) {
+                result = multiply(result, square);
+            }
+            square = multiply(square, square);
+        }
+        return result;
+    }
+
+    /**
+     * Montgomery reduction of the 128-bit value high*2^64 + low, which must be
+     * less than modulus*2^64.
+     *
+     * @return (high*2^64 + low) * 2^-64 mod modulus
+     */
+    private long reduce(final long high, final long low) {
+        final long m = low * negativeInverse;
+
+        // low + (m*n mod 2^64) is 0 mod 2^64, so it carries unless low is 0
+        final long carry = low != 0 ? 1 : 0;
+
+        return reduceOnce(high + multiplyHighUnsigned(m, modulus) + carry);
+    }
+
+    /**
+     * Reduce an unsigned value in the range [0, 2*modulus) modulo modulus
+     */
+    private long reduceOnce(final long value) {
+        return Long.compareUnsigned(value, modulus) >= 0 ? value - modulus
+                                                         : value;
+    }
+
+    /**
+     * The upper 64 bits of the unsigned 128-bit product of a and b
+     */
+    static long multiplyHighUnsigned(final long a, final long b) {
+        final long a0 = a & LOW_32_BITS;
+        final long a1 = a >>> 32;
+        final long b0 = b & LOW_32_BITS;
+        final long b1 = b >>> 32;
+
+        final long p00 = a0 * b0;
+        final long p01 = a0 * b1;
+        final long p10 = a1 * b0;
+        final long p11 = a1 * b1;
+
+        final long middle = (p00 >>> 32) + (p01 & LOW_32_BITS) + (p10 & LOW_32_BITS);
+
+        return p11 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+    }
+}
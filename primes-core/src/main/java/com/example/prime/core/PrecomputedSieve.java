@@ -0,0 +1,84 @@
+package com.example.prime.core;
+
+import static java.util.Objects.nonNull;
+
+import java.util.List;
+
+/**
+ * Answers requests from a precomputed {@link PrimeBitmap} where possible and
+ * passes any larger requests on to another {@link PrimeSupplier}.
+ *
+ * Until {@link #precompute(int)} has completed every request is passed on.
+ */
+public class PrecomputedSieve implements PrimeSupplier, HeapEstimator {
+
+    private final PrimeSupplier delegate;
+
+    // the precomputed primes, or null if they haven't been calculated yet
+    private volatile PrimeBitmap bitmap;
+
+    /**
+     * Construct a new {@link PrecomputedSieve}
+     *
+     * @param delegate calculates the precomputed primes and answers requests
+     *                 that are beyond them
+     */
+    public PrecomputedSieve(final PrimeSupplier delegate) {
+        nonNull(delegate);
+        this.delegate = delegate;
+    }
+
+    /**
+     * Calculate and store the primes up to bound, replacing any previously
+     * precomputed primes.
+     *
+     * @throws CalculationException if the primes cannot be calculated
+     */
+    public void precompute(final int bound) throws CalculationException {
+        bitmap = PrimeBitmap.of(delegate, bound);
+    }
+
+    /**
+     * The precomputed primes, or null if they haven't been calculated yet
+     */
+    public PrimeBitmap getBitmap() {
+        return bitmap;
+    }
+
+    @Override
+    public List<Integer> primesUpTo(final int upperBound) throws CalculationException {
+
+        if ( upperBound <= 1 ) {
+            throw new IllegalArgumentException("There are no primes below 2");
+        }
+
+        // Read the volatile once so that it can't change under us
+        final PrimeBitmap current = bitmap;
+
+        if ( current != null && upperBound <= current.bound() ) {
+            return current.primesUpTo(upperBound);
+        }
+
+        return delegate.primesUpTo(upperBound);
+    }
+
+    @Override
+    public long estimateHeapBytes(final int upperBound) {
+        final PrimeBitmap current = bitmap;
+
+        if ( current != null && upperBound <= current.bound() ) {
+            // the bitmap is already allocated, only the list is needed
+            return HeapEstimator.grownListBytes(
+                    HeapEstimator.primeCountUpperBound(upperBound));
+        }
+
+        return delegate instanceof HeapEstimator
+                ? ((HeapEstimator) delegate).estimateHeapBytes(upperBound)
+                : UNKNOWN;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.prime.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable record of which numbers in the range [0,bound] are prime.
+ *
+ * Only odd numbers are stored, bit i represents 2i+1, so the bitmap uses
+ * bound/16 bytes. A {@link RankSelectIndex} is built alongside the bitmap so
+ * that primes can be counted and searched for without decoding them.
+ */
+public final class PrimeBitmap {
+
+    private final int bound;
+    private final long[] words;
+    private final RankSelectIndex index;
+
+    private PrimeBitmap(final int bound, final long[] words) {
+        this.bound = bound;
+        this.words = words;
+        this.index = new RankSelectIndex(words, bound);
+    }
+
+    /**
+     * Build a bitmap of the primes up to bound
+     *
+     * @param supplier  calculates the primes
+     * @param bound     largest value recorded in the bitmap
+     *
+     * @throws CalculationException if the primes cannot be calculated
+     */
+    public static PrimeBitmap of(
+            final PrimeSupplier supplier,
+            final int bound) throws CalculationException {
+
+        final List<Integer> primes = supplier.primesUpTo(bound);
+
+        // one bit for each odd number in [1,bound]
+        final long oddCount = (bound + 1L) / 2;
+        final long[] words = new long[(int) ((oddCount + 63) / 64)];
+
+        final IntConsumer record = prime -> {
+            if ( prime != 2 ) {
+                final int idx = prime >>> 1;
+                words[idx >>> 6] |= 1L << idx;
+            }
+        };
+
+        // avoid boxing every prime if we can
+        if ( primes instanceof IntList ) {
+            ((IntList) primes).forEachInt(record);
+        }
+        else {
+            primes.forEach(record::accept);
+        }
+
+        return new PrimeBitmap(bound, words);
+    }
+
+    /**
+     * Largest value recorded in the bitmap
+     */
+    public int bound() {
+        return bound;
+    }
+
+    /**
+     * Number of primes in the range [0,bound]
+     */
+    public int count() {
+        return index.total();
+    }
+
+    /**
+     * The index of the primes in the bitmap
+     */
+    public RankSelectIndex index() {
+        return index;
+    }
+
+    /**
+     * Check whether a value in the range [0,bound] is prime
+     *
+     * @throws IllegalArgumentException if n is outside the range
+     */
+    public boolean isPrime(final int n) {
+        checkInRange(n);
+
+        if ( (n & 1) == 0 ) {
+            return n == 2;
+        }
+
+        final int idx = n >>> 1;
+        return (words[idx >>> 6] & (1L << idx)) != 0;
+    }
+
+    /**
+     * Decode the primes in the range [2,upperBound]
+     *
+     * @throws IllegalArgumentException if upperBound is outside the range
+     */
+    public List<Integer> primesUpTo(final int upperBound) {
+        checkInRange(upperBound);
+
+        final List<Integer> primes = new ArrayList<>(index.count(upperBound));
+        if ( upperBound >= 2 ) {
+            primes.add(2);
+        }
+
+        // index of the largest odd value <= upperBound
+        final int lastIdx = (upperBound - 1) >>> 1;
+
+        for ( int w = 0; w <= lastIdx >>> 6; w++ ) {
+            long word = words[w];
+            while ( word != 0 ) {
+                final int idx = (w << 6) + Long.numberOfTrailingZeros(word);
+                if ( idx > lastIdx ) {
+                    break;
+                }
+                primes.add(2*idx + 1);
+                word &= word - 1;
+            }
+        }
+
+        return primes;
+    }
+
+    /**
+     * The raw bitmap, bit i of the array represents 2i+1
+     */
+    long[] words() {
+        return words;
+    }
+
+    private void checkInRange(final int n) {
+        if ( n < 0 || n > bound ) {
+            throw new IllegalArgumentException(
+                    n + " is outside the range [0," + bound + "]");
+        }
+    }
+}
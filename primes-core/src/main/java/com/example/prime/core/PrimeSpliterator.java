@@ -0,0 +1,187 @@
+package com.example.prime.core;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Generates the primes in a range of long values lazily, one segment of odd
+ * values at a time.
+ *
+ * Splitting hands out a chunk of the values that haven't been sieved yet,
+ * starting from the smallest, and each chunk is sieved independently so a
+ * parallel stream of primes scales across cores. Like the batches of
+ * {@link java.util.Spliterators.AbstractSpliterator}, the chunks double in
+ * size with each split up to a limit. Halving instead would hand out values
+ * near {@link PrimeStream#MAX_VALUE} from the first split of an unbounded
+ * range, which need every base prime up to 2^31.
+ */
+final class PrimeSpliterator implements Spliterator.OfLong {
+
+    // don't split ranges that fit into a couple of segments
+    private static final long MIN_SPLIT = 4L * SegmentedSieve.BUFFER_ODDS;
+
+    // largest chunk of values handed out by a split
+    private static final long MAX_CHUNK = 1024L * SegmentedSieve.BUFFER_ODDS;
+
+    private final SegmentKernel kernel;
+
+    // smallest value that hasn't been sieved yet
+    private long next;
+
+    // largest value in the range
+    private final long last;
+
+    // number of values handed out by the next split
+    private long chunk = MIN_SPLIT;
+
+    // the current segment and the position in it
+    private long[] words;
+    private long lowOdd;
+    private int wordCount;
+    private int wordIndex;
+    private long bits;
+
+    /**
+     * Construct a new {@link PrimeSpliterator} over [from,to]
+     */
+    PrimeSpliterator(final SegmentKernel kernel, final long from, final long to) {
+        this.kernel = kernel;
+        this.next = Math.max(from, 2);
+        this.last = to;
+    }
+
+    @Override
+    public boolean tryAdvance(final LongConsumer action) {
+        if ( next == 2 ) {
+            next = 3;
+            if ( last >= 2 ) {
+                action.accept(2);
+                return true;
+            }
+        }
+
+        while ( bits == 0 ) {
+            if ( wordIndex + 1 < wordCount ) {
+                bits = words[++wordIndex];
+            }
+            else if ( !sieveNextSegment() ) {
+                return false;
+            }
+        }
+
+        final long prime =
+                lowOdd + ((long) wordIndex << 7) + 2 * Long.numberOfTrailingZeros(bits);
+
+        // clear the lowest set bit
+        bits &= bits - 1;
+
+        action.accept(prime);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(final LongConsumer action) {
+        if ( next == 2 ) {
+            next = 3;
+            if ( last >= 2 ) {
+                action.accept(2);
+            }
+        }
+
+        do {
+            for ( ; ; bits = words[++wordIndex] ) {
+                final long base = lowOdd + ((long) wordIndex << 7);
+
+                for ( ; bits != 0; bits &= bits - 1 ) {
+                    action.accept(base + 2 * Long.numberOfTrailingZeros(bits));
+                }
+
+                if ( wordIndex + 1 >= wordCount ) {
+                    break;
+                }
+            }
+        }
+        while ( sieveNextSegment() );
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        // only values that haven't been sieved can be handed out
+        if ( bits != 0 || wordIndex + 1 < wordCount ) {
+            return null;
+        }
+
+        final long remaining = last - next;
+        if ( remaining < MIN_SPLIT ) {
+            return null;
+        }
+
+        // never more than half, so that a small range is still split evenly
+        final long size = Math.min(remaining / 2, chunk);
+        chunk = Math.min(2 * chunk, MAX_CHUNK);
+
+        final PrimeSpliterator prefix =
+                new PrimeSpliterator(kernel, next, next + size - 1);
+        next += size;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        if ( next > last ) {
+            return 0;
+        }
+
+        // the density of the primes near the top of the range, which
+        // overestimates the count
+        final double values = (double) (last - next) + 1;
+        return (long) (values / Math.log(Math.max(last, 3)) * 1.3) + 1;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SORTED | NONNULL | IMMUTABLE;
+    }
+
+    @Override
+    public Comparator<? super Long> getComparator() {
+        // natural order
+        return null;
+    }
+
+    /**
+     * Sieve the next segment of odd values into the bitmap
+     *
+     * @return false if there are no values left
+     */
+    private boolean sieveNextSegment() {
+        // 2 is the only even prime and 1 isn't prime
+        final long from = Math.max(next, 3) | 1;
+
+        if ( from > last ) {
+            next = Math.max(next, from);
+            wordCount = 0;
+            wordIndex = 0;
+            bits = 0;
+            return false;
+        }
+
+        final int count =
+                (int) Math.min(SegmentedSieve.BUFFER_ODDS, (last - from) / 2 + 1);
+
+        wordCount = (count + 63) >>> 6;
+        if ( words == null || words.length < wordCount ) {
+            words = new long[wordCount];
+        }
+
+        final long highOdd = from + 2L * (count - 1);
+        kernel.sieve(BasePrimes.covering(highOdd), from, count, words);
+
+        lowOdd = from;
+        wordIndex = 0;
+        bits = words[0];
+        next = highOdd + 1;
+        return true;
+    }
+}
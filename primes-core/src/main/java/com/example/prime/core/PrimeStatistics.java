@@ -0,0 +1,346 @@
+package com.example.prime.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Aggregate statistics about an ascending run of primes, calculated without
+ * storing the primes themselves.
+ *
+ * Instances are intended to be used with
+ * {@link SegmentedSieve#reduce(int, java.util.function.Supplier,
+ * java.util.function.ObjIntConsumer, java.util.function.BinaryOperator)},
+ * each segment accumulates its own statistics which are then merged. To make
+ * the merge possible each instance remembers the few primes at either end of
+ * its run that could form a gap or a {@link Constellation} with primes in a
+ * neighbouring run.
+ *
+ * Not thread-safe.
+ */
+public class PrimeStatistics {
+
+    // Enough room for every prime within MAX_WIDTH of the first/last prime
+    private static final int EDGE_CAPACITY = Constellation.MAX_WIDTH;
+
+    // constellations whose members are listed as well as counted
+    private final Set<Constellation> listed;
+
+    private long count;
+    private long sum;
+    private int first;
+    private int last;
+    private int maxGap;
+    private int maxGapStart;
+
+    // the primes p <= first + MAX_WIDTH
+    private final int[] head = new int[EDGE_CAPACITY];
+    private int headSize;
+
+    // the primes p >= last - MAX_WIDTH
+    private final int[] tail = new int[EDGE_CAPACITY];
+    private int tailSize;
+
+    private final Map<Constellation, Long> constellationCounts =
+            new EnumMap<>(Constellation.class);
+
+    private final Map<Constellation, List<Integer>> constellations =
+            new EnumMap<>(Constellation.class);
+
+    /**
+     * Construct empty statistics
+     *
+     * @param listed constellations to list as well as count
+     */
+    public PrimeStatistics(final Set<Constellation> listed) {
+        this.listed = listed.isEmpty()
+                            ? EnumSet.noneOf(Constellation.class)
+                            : EnumSet.copyOf(listed);
+
+        for ( final Constellation constellation : Constellation.values() ) {
+            constellationCounts.put(constellation, 0L);
+        }
+
+        for ( final Constellation constellation : this.listed ) {
+            constellations.put(constellation, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Add a prime to the statistics. Primes must be added in ascending order
+     *
+     * @param prime a prime larger than any previously added
+     */
+    public void accept(final int prime) {
+        if ( count == 0 ) {
+            first = prime;
+        }
+        else {
+            recordGap(last, prime - last);
+        }
+
+        // Count the constellations that end with this prime. All of the
+        // other members must already be in the tail
+        for ( final Constellation constellation : Constellation.values() ) {
+            final long start = (long) prime - constellation.width();
+
+            if ( start >= first
+                    && allMembersIn(constellation, start, tail, tailSize) ) {
+                recordConstellation(constellation, (int) start);
+            }
+        }
+
+        if ( prime <= (long) first + Constellation.MAX_WIDTH ) {
+            head[headSize++] = prime;
+        }
+        tailSize = trimTail(tail, tailSize, prime);
+        tail[tailSize++] = prime;
+
+        count++;
+        sum += prime;
+        last = prime;
+    }
+
+    /**
+     * Merge the statistics of a run of primes that follows this one.
+     *
+     * @param next statistics for primes that are all larger than the primes
+     *             in this run
+     *
+     * @return this object, updated to include 'next'
+     */
+    public PrimeStatistics merge(final PrimeStatistics next) {
+        if ( next.count == 0 ) {
+            return this;
+        }
+
+        if ( count == 0 ) {
+            copyFrom(next);
+            return this;
+        }
+
+        // A gap spans the boundary between the runs
+        recordGap(last, next.first - last);
+        if ( next.maxGap > maxGap ) {
+            maxGap = next.maxGap;
+            maxGapStart = next.maxGapStart;
+        }
+
+        // Constellations that span the boundary start in our tail and end in
+        // the head of 'next', any members in between are in one or the other
+        final int[] boundary = new int[tailSize + next.headSize];
+        System.arraycopy(tail, 0, boundary, 0, tailSize);
+        System.arraycopy(next.head, 0, boundary, tailSize, next.headSize);
+
+        for ( final Constellation constellation : Constellation.values() ) {
+            for ( int i = 0; i < tailSize; i++ ) {
+                final int start = tail[i];
+
+                final long end = (long) start + constellation.width();
+
+                if ( end >= next.first
+                        && contains(boundary, boundary.length, end)
+                        && allMembersIn(constellation, start,
+                                        boundary, boundary.length) ) {
+                    recordConstellation(constellation, start);
+                }
+            }
+
+            constellationCounts.merge(
+                    constellation,
+                    next.constellationCounts.get(constellation),
+                    Long::sum);
+        }
+
+        for ( final Constellation constellation : listed ) {
+            final List<Integer> nextMembers =
+                    next.constellations.get(constellation);
+
+            if ( nextMembers != null ) {
+                constellations.get(constellation).addAll(nextMembers);
+            }
+        }
+
+        // Extend the head with any of the new primes that are close enough to
+        // our first prime, and replace the tail with the new tail topped up
+        // with any of our primes that are close enough to the new last prime
+        for ( int i = 0; i < next.headSize; i++ ) {
+            if ( next.head[i] <= (long) first + Constellation.MAX_WIDTH ) {
+                head[headSize++] = next.head[i];
+            }
+        }
+
+        int newTailSize = 0;
+        final int[] newTail = new int[EDGE_CAPACITY];
+        for ( int i = 0; i < tailSize; i++ ) {
+            if ( tail[i] >= (long) next.last - Constellation.MAX_WIDTH ) {
+                newTail[newTailSize++] = tail[i];
+            }
+        }
+        for ( int i = 0; i < next.tailSize; i++ ) {
+            newTail[newTailSize++] = next.tail[i];
+        }
+        System.arraycopy(newTail, 0, tail, 0, newTailSize);
+        tailSize = newTailSize;
+
+        count += next.count;
+        sum += next.sum;
+        last = next.last;
+
+        return this;
+    }
+
+    /**
+     * Number of primes
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Sum of all the primes
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * Largest difference between consecutive primes, or 0 if there are fewer
+     * than two primes
+     */
+    public int getMaxGap() {
+        return maxGap;
+    }
+
+    /**
+     * The prime that precedes the first occurrence of the largest gap, or 0 if
+     * there are fewer than two primes
+     */
+    public int getMaxGapStart() {
+        return maxGapStart;
+    }
+
+    /**
+     * Number of occurrences of the constellation
+     */
+    public long getConstellationCount(final Constellation constellation) {
+        return constellationCounts.get(constellation);
+    }
+
+    /**
+     * The smallest member of each occurrence of the constellation, in
+     * ascending order
+     *
+     * @throws IllegalArgumentException if the constellation is not listed
+     */
+    public List<Integer> getConstellations(final Constellation constellation) {
+        final List<Integer> members = constellations.get(constellation);
+
+        if ( members == null ) {
+            throw new IllegalArgumentException(
+                    constellation.getLabel() + " is not listed");
+        }
+
+        return Collections.unmodifiableList(members);
+    }
+
+    private void recordGap(final int start, final int gap) {
+        // strictly greater, so that ties report the earliest gap
+        if ( gap > maxGap ) {
+            maxGap = gap;
+            maxGapStart = start;
+        }
+    }
+
+    private void recordConstellation(
+            final Constellation constellation,
+            final int start) {
+
+        constellationCounts.merge(constellation, 1L, Long::sum);
+
+        if ( listed.contains(constellation) ) {
+            constellations.get(constellation).add(start);
+        }
+    }
+
+    private void copyFrom(final PrimeStatistics other) {
+        count = other.count;
+        sum = other.sum;
+        first = other.first;
+        last = other.last;
+        maxGap = other.maxGap;
+        maxGapStart = other.maxGapStart;
+
+        System.arraycopy(other.head, 0, head, 0, other.headSize);
+        headSize = other.headSize;
+        System.arraycopy(other.tail, 0, tail, 0, other.tailSize);
+        tailSize = other.tailSize;
+
+        constellationCounts.putAll(other.constellationCounts);
+        for ( final Constellation constellation : listed ) {
+            final List<Integer> otherMembers =
+                    other.constellations.get(constellation);
+
+            if ( otherMembers != null ) {
+                constellations.get(constellation).addAll(otherMembers);
+            }
+        }
+    }
+
+    /**
+     * Check whether every member of the constellation, apart from the last, is
+     * in the ascending array of primes.
+     */
+    private static boolean allMembersIn(
+            final Constellation constellation,
+            final long start,
+            final int[] primes,
+            final int size) {
+
+        final int[] offsets = constellation.offsets();
+
+        for ( int i = 0; i < offsets.length - 1; i++ ) {
+            if ( !contains(primes, size, start + offsets[i]) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(
+            final int[] primes,
+            final int size,
+            final long value) {
+
+        for ( int i = 0; i < size; i++ ) {
+            if ( primes[i] == value ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop the primes that are too far below 'prime' to share a constellation
+     * with it, or anything larger.
+     *
+     * @return the new size of the tail
+     */
+    private static int trimTail(
+            final int[] tail,
+            final int size,
+            final int prime) {
+
+        int drop = 0;
+        while ( drop < size && tail[drop] < (long) prime - Constellation.MAX_WIDTH ) {
+            drop++;
+        }
+
+        System.arraycopy(tail, drop, tail, 0, size - drop);
+        return size - drop;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.prime.core;
+
+import java.util.Spliterator;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy streams of primes, for when the bound isn't known in advance, e.g.
+ * {@code PrimeStream.from(1000).filter(p -> p % 4 == 1).limit(10)}.
+ *
+ * The primes are sieved one segment at a time as they are consumed. Parallel
+ * streams split the range into independent halves, so the primes should be
+ * bounded, with {@link #range(long, long)}, or the stream short-circuited
+ * when used in parallel.
+ */
+public final class PrimeStream {
+
+    /**
+     * The largest value that can be sieved, the square of the largest base
+     * prime that can be held in an int
+     */
+    public static final long MAX_VALUE =
+            (long) Integer.MAX_VALUE * Integer.MAX_VALUE;
+
+    private PrimeStream() {}
+
+    /**
+     * The primes no smaller than start, in ascending order. The stream ends
+     * at {@link #MAX_VALUE}.
+     */
+    public static LongStream from(final long start) {
+        return range(start, MAX_VALUE);
+    }
+
+    /**
+     * The primes in the range [from,to], in ascending order
+     *
+     * @throws IllegalArgumentException if to is larger than {@link #MAX_VALUE}
+     */
+    public static LongStream range(final long from, final long to) {
+        return StreamSupport.longStream(spliterator(from, to), false);
+    }
+
+    /**
+     * A spliterator over the primes in the range [from,to]
+     *
+     * @throws IllegalArgumentException if to is larger than {@link #MAX_VALUE}
+     */
+    public static Spliterator.OfLong spliterator(final long from, final long to) {
+        if ( to > MAX_VALUE ) {
+            throw new IllegalArgumentException(
+                    "Primes can only be generated up to " + MAX_VALUE);
+        }
+
+        return new PrimeSpliterator(ScalarSegmentKernel.INSTANCE, from, to);
+    }
+}
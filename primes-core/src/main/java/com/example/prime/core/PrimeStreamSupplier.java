@@ -0,0 +1,38 @@
+package com.example.prime.core;
+
+import java.util.List;
+
+/**
+ * Adapts a parallel {@link PrimeStream} to the {@link PrimeSupplier}
+ * interface. The segments are sieved on the common fork/join pool.
+ */
+public class PrimeStreamSupplier implements PrimeSupplier, HeapEstimator {
+
+    @Override
+    public List<Integer> primesUpTo(final int upperBound) {
+        if ( upperBound <= 1 ) {
+            throw new IllegalArgumentException("There are no primes below 2");
+        }
+
+        final int[] primes =
+                PrimeStream.range(2, upperBound)
+                           .parallel()
+                           .mapToInt(prime -> (int) prime)
+                           .toArray();
+
+        return new IntList(primes, primes.length);
+    }
+
+    @Override
+    public long estimateHeapBytes(final int upperBound) {
+        // each split collects its primes into buffers that are then copied
+        // into the result
+        return HeapEstimator.primeCountUpperBound(upperBound)
+                * Integer.BYTES * 3;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.prime.core;
+
+/**
+ * Answers counting and searching questions about the primes recorded in a
+ * {@link PrimeBitmap} without decoding them.
+ *
+ * The index holds the number of primes before each block of 512 bits (the
+ * rank directory) and, for every 4096th prime, the block that contains it
+ * (the select samples). Counting the primes up to a value reads one entry
+ * of the directory and at most 8 words. Finding the k'th prime starts from
+ * the nearest sample and binary searches the directory up to the next one.
+ *
+ * The index needs ~1/16 of the memory used by the bitmap.
+ */
+public final class RankSelectIndex {
+
+    // words in each block of the rank directory
+    private static final int BLOCK_WORDS = 8;
+    private static final int BLOCK_SHIFT = 3;
+
+    // a block is sampled for every SAMPLE_RATE'th set bit
+    private static final int SAMPLE_SHIFT = 12;
+
+    // bit i represents the odd value 2i+1
+    private final long[] words;
+    private final int bound;
+
+    // blockRanks[b] is the number of bits set in the blocks before b, with an
+    // extra entry for the total
+    private final int[] blockRanks;
+
+    // selectSamples[j] is the block that contains set bit j * 2^SAMPLE_SHIFT
+    private final int[] selectSamples;
+
+    // the number of primes, including 2
+    private final int total;
+
+    /**
+     * Build the index of a bitmap of odd values
+     *
+     * @param words  bit i represents 2i+1, must not be modified afterwards
+     * @param bound  largest value recorded in the bitmap
+     */
+    RankSelectIndex(final long[] words, final int bound) {
+        this.words = words;
+        this.bound = bound;
+
+        final int blocks = (words.length + BLOCK_WORDS - 1) >>> BLOCK_SHIFT;
+        blockRanks = new int[blocks + 1];
+
+        int rank = 0;
+        for ( int b = 0; b < blocks; b++ ) {
+            blockRanks[b] = rank;
+
+            final int last = Math.min(words.length, (b + 1) << BLOCK_SHIFT);
+            for ( int w = b << BLOCK_SHIFT; w < last; w++ ) {
+                rank += Long.bitCount(words[w]);
+            }
+        }
+        blockRanks[blocks] = rank;
+        total = rank + (bound >= 2 ? 1 : 0);
+
+        selectSamples = new int[(rank >>> SAMPLE_SHIFT) + 1];
+        int block = 0;
+        for ( int j = 0; j < selectSamples.length; j++ ) {
+            final int bit = j << SAMPLE_SHIFT;
+            while ( block + 1 < blocks && blockRanks[block + 1] <= bit ) {
+                block++;
+            }
+            selectSamples[j] = block;
+        }
+    }
+
+    /**
+     * Largest value covered by the index
+     */
+    public int bound() {
+        return bound;
+    }
+
+    /**
+     * The number of primes in the range [0,bound]
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * The number of primes in the range [0,x]
+     *
+     * @throws IllegalArgumentException if x is outside the range [0,bound]
+     */
+    public int count(final int x) {
+        checkInRange(x);
+
+        if ( x < 2 ) {
+            return 0;
+        }
+
+        // 2, and the odd values up to x
+        return 1 + rank(((x - 1) >>> 1) + 1);
+    }
+
+    /**
+     * The n'th prime, counting 2 as the first
+     *
+     * @throws IllegalArgumentException if there are fewer than n primes in the
+     *         range [0,bound]
+     */
+    public int nth(final int n) {
+        if ( n < 1 || n > total ) {
+            throw new IllegalArgumentException(
+                    "There are " + total + " primes up to " + bound
+                        + ", n must be in the range [1," + total + "]");
+        }
+
+        if ( n == 1 ) {
+            return 2;
+        }
+
+        return 2 * select(n - 2) + 1;
+    }
+
+    /**
+     * The smallest prime larger than x
+     *
+     * @throws IllegalArgumentException if x is outside the range [0,bound] or
+     *         there is no larger prime up to bound
+     */
+    public int next(final int x) {
+        final int primes = count(x);
+
+        if ( primes == total ) {
+            throw new IllegalArgumentException(
+                    "There are no primes larger than " + x + " up to " + bound);
+        }
+
+        return nth(primes + 1);
+    }
+
+    /**
+     * The largest prime smaller than x
+     *
+     * @throws IllegalArgumentException if x is outside the range [0,bound] or
+     *         there is no smaller prime
+     */
+    public int previous(final int x) {
+        checkInRange(x);
+
+        final int primes = x > 0 ? count(x - 1) : 0;
+        if ( primes == 0 ) {
+            throw new IllegalArgumentException(
+                    "There are no primes smaller than " + x);
+        }
+
+        return nth(primes);
+    }
+
+    /**
+     * The number of bits set before bit i
+     */
+    private int rank(final int i) {
+        final int word = i >>> 6;
+
+        int rank = blockRanks[word >>> BLOCK_SHIFT];
+        for ( int w = word & ~(BLOCK_WORDS - 1); w < word; w++ ) {
+            rank += Long.bitCount(words[w]);
+        }
+
+        if ( (i & 63) != 0 ) {
+            rank += Long.bitCount(words[word] & (-1L >>> (64 - (i & 63))));
+        }
+        return rank;
+    }
+
+    /**
+     * The index of set bit k, counting from 0
+     */
+    private int select(final int k) {
+        // the block is between the samples either side of k
+        final int sample = k >>> SAMPLE_SHIFT;
+        int low = selectSamples[sample];
+        int high = sample + 1 < selectSamples.length
+                        ? selectSamples[sample + 1]
+                        : blockRanks.length - 2;
+
+        // the last block whose rank is no larger than k
+        while ( low < high ) {
+            final int middle = (low + high + 1) >>> 1;
+            if ( blockRanks[middle] <= k ) {
+                low = middle;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+
+        int remaining = k - blockRanks[low];
+        int w = low << BLOCK_SHIFT;
+        for ( int bits = Long.bitCount(words[w]);
+              bits <= remaining;
+              bits = Long.bitCount(words[++w]) ) {
+            remaining -= bits;
+        }
+
+        // clear the lower set bits of the word
+        long word = words[w];
+        for ( ; remaining > 0; remaining-- ) {
+            word &= word - 1;
+        }
+
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private void checkInRange(final int x) {
+        if ( x < 0 || x > bound ) {
+            throw new IllegalArgumentException(
+                    x + " is outside the range [0," + bound + "]");
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.prime.core;
+
+import java.util.Arrays;
+
+/**
+ * A {@link SegmentKernel} that clears one bit at a time for each multiple of
+ * each base prime, and extracts the primes one set bit at a time.
+ */
+public class ScalarSegmentKernel implements SegmentKernel {
+
+    /** Shared instance, the kernel holds no state */
+    public static final ScalarSegmentKernel INSTANCE = new ScalarSegmentKernel();
+
+    @Override
+    public void sieve(
+            final int[] basePrimes,
+            final long lowOdd,
+            final int count,
+            final long[] words) {
+
+        final int wordCount = (count + 63) >>> 6;
+
+        // Every value is a candidate, except the bits beyond the segment
+        Arrays.fill(words, 0, wordCount, -1L);
+        if ( (count & 63) != 0 ) {
+            words[wordCount - 1] = -1L >>> (64 - (count & 63));
+        }
+
+        // 1 isn't prime
+        if ( lowOdd == 1 ) {
+            words[0] &= ~1L;
+        }
+
+        clearMultiples(basePrimes, 0, lowOdd, count, words);
+    }
+
+    /**
+     * Clear the bits of the odd multiples of some of the base primes, one bit
+     * at a time, stopping at the first prime whose square is beyond the
+     * segment
+     *
+     * @param basePrimes  the odd primes in ascending order
+     * @param first       index of the first prime to use
+     * @param lowOdd      the smallest value in the segment
+     * @param count       number of odd values in the segment
+     * @param words       the bitmap of the segment
+     */
+    protected void clearMultiples(
+            final int[] basePrimes,
+            final int first,
+            final long lowOdd,
+            final int count,
+            final long[] words) {
+
+        final long highOdd = lowOdd + 2L * (count - 1);
+
+        for ( int p = first; p < basePrimes.length; p++ ) {
+            final int prime = basePrimes[p];
+
+            final long square = (long) prime * prime;
+            if ( square > highOdd ) {
+                break;
+            }
+
+            // Start no lower than the square of the prime, anything smaller
+            // has a smaller factor. This also stops the prime from removing
+            // itself when it falls within the segment.
+            long multiple = square;
+            if ( multiple < lowOdd ) {
+                multiple = ((lowOdd + prime - 1) / prime) * prime;
+
+                // even multiples aren't in the bitmap
+                if ( (multiple & 1) == 0 ) {
+                    multiple += prime;
+                }
+            }
+
+            final int start = (int) ((multiple - lowOdd) >>> 1);
+
+            // A prime at least as large as the segment has one multiple in it
+            // at most. Stepping past that multiple could overflow the index
+            // for primes close to Integer.MAX_VALUE.
+            if ( prime >= count ) {
+                if ( start < count ) {
+                    words[start >>> 6] &= ~(1L << start);
+                }
+                continue;
+            }
+
+            // consecutive odd multiples are 2*prime apart, which is prime
+            // bits apart
+            for ( int i = start; i < count; i += prime ) {
+                words[i >>> 6] &= ~(1L << i);
+            }
+        }
+    }
+
+    @Override
+    public int count(final long[] words, final int count) {
+        final int wordCount = (count + 63) >>> 6;
+
+        int primes = 0;
+        for ( int i = 0; i < wordCount; i++ ) {
+            primes += Long.bitCount(words[i]);
+        }
+        return primes;
+    }
+
+    @Override
+    public int extract(
+            final long[] words,
+            final int count,
+            final long lowOdd,
+            final int[] out,
+            final int offset) {
+
+        final int wordCount = (count + 63) >>> 6;
+
+        int next = offset;
+        for ( int i = 0; i < wordCount; i++ ) {
+            // value of bit 0 in this word
+            final long base = lowOdd + ((long) i << 7);
+
+            long bits = words[i];
+            while ( bits != 0 ) {
+                out[next++] =
+                        (int) (base + 2 * Long.numberOfTrailingZeros(bits));
+
+                // clear the lowest set bit
+                bits &= bits - 1;
+            }
+        }
+        return next - offset;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.prime.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Sieving one bitmap of odd values with a {@link SegmentKernel}
+ */
+@Name("com.example.prime.Segment")
+@Label("Sieve Segment")
+@Category({ "Primes", "Sieve" })
+@Description("Sieving one bitmap of odd values")
+@StackTrace(false)
+final class SegmentEvent extends jdk.jfr.Event {
+
+    private static final EventType TYPE = EventType.getEventType(SegmentEvent.class);
+
+    @Label("Segment")
+    @Description("Index of the bitmap within the calculation or range")
+    int segment;
+
+    @Label("Low")
+    @Description("Smallest value in the bitmap")
+    long low;
+
+    @Label("High")
+    @Description("Largest value in the bitmap")
+    long high;
+
+    @Label("Kernel")
+    String kernel;
+
+    /**
+     * An event to reuse for each segment of a task, or null if nothing is
+     * recording them, so that no event is allocated per segment. Reused
+     * events must call end() before shouldCommit().
+     */
+    static SegmentEvent forTask() {
+        return TYPE.isEnabled() ? new SegmentEvent() : null;
+    }
+}
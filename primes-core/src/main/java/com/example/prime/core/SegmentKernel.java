@@ -0,0 +1,46 @@
+package com.example.prime.core;
+
+/**
+ * The inner loops of a segmented sieve, separated out so that they can be
+ * replaced by faster implementations.
+ *
+ * A segment is a run of consecutive odd values lowOdd, lowOdd+2, ... held in
+ * a bitmap of longs, where bit i (bit i%64 of word i/64) represents
+ * lowOdd + 2i. Implementations must not allocate, they are called once for
+ * every segment and the bitmaps are reused.
+ */
+public interface SegmentKernel {
+
+    /**
+     * Mark the primes among count odd values starting at lowOdd. Afterwards
+     * bit i is set if, and only if, lowOdd + 2i is prime and every bit from
+     * count onwards in the last word used is clear.
+     *
+     * @param basePrimes  the odd primes in ascending order, including at
+     *                    least every one up to the square root of the largest
+     *                    value in the segment
+     * @param lowOdd      the smallest value in the segment, odd and at least 1
+     * @param count       number of odd values in the segment
+     * @param words       receives the bitmap, at least (count+63)/64 long
+     */
+    void sieve(int[] basePrimes, long lowOdd, int count, long[] words);
+
+    /**
+     * Count the bits set in the first (count+63)/64 words of a sieved bitmap
+     */
+    int count(long[] words, int count);
+
+    /**
+     * Write the value represented by each bit set in a sieved bitmap into out
+     * in ascending order
+     *
+     * @param words   a sieved bitmap
+     * @param count   number of odd values in the segment
+     * @param lowOdd  the smallest value in the segment
+     * @param out     receives the values
+     * @param offset  index in out of the first value
+     *
+     * @return the number of values written
+     */
+    int extract(long[] words, int count, long lowOdd, int[] out, int offset);
+}
@@ -0,0 +1,83 @@
+package com.example.prime.core;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Chooses a {@link SegmentKernel} at runtime.
+ *
+ * The kernel that uses the Vector API lives in the primes-vector module,
+ * which needs Java 16 or later and
+ * {@code --add-modules jdk.incubator.vector}. It is loaded by name so that
+ * this module still runs on Java 8, and is only used if it loads and agrees
+ * with the scalar kernel on a test segment.
+ */
+public final class SegmentKernels {
+
+    /** Name of the kernel class that uses the Vector API */
+    public static final String VECTOR_KERNEL =
+            "com.example.prime.vector.VectorSegmentKernel";
+
+    // loaded once, absent if the vector kernel can't be used
+    private static final Optional<SegmentKernel> VECTOR = loadVectorKernel();
+
+    private SegmentKernels() {}
+
+    /**
+     * The kernel that uses the Vector API, if it can be used in this JVM
+     */
+    public static Optional<SegmentKernel> vector() {
+        return VECTOR;
+    }
+
+    /**
+     * The fastest kernel that can be used in this JVM
+     */
+    public static SegmentKernel fastest() {
+        return VECTOR.orElse(ScalarSegmentKernel.INSTANCE);
+    }
+
+    private static Optional<SegmentKernel> loadVectorKernel() {
+        try {
+            final SegmentKernel kernel =
+                    (SegmentKernel) Class.forName(VECTOR_KERNEL)
+                                         .getConstructor()
+                                         .newInstance();
+
+            return agreesWithScalar(kernel)
+                        ? Optional.of(kernel)
+                        : Optional.empty();
+        }
+        catch ( final ReflectiveOperationException
+                        | LinkageError
+                        | RuntimeException ex ) {
+            // Not on the class path, an older JVM, or the incubator module
+            // hasn't been added
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Sieve and extract a segment that starts below the small primes and
+     * doesn't fill its last word with both kernels
+     */
+    private static boolean agreesWithScalar(final SegmentKernel kernel) {
+        final SegmentKernel scalar = ScalarSegmentKernel.INSTANCE;
+        final int[] basePrimes = SegmentedSieve.basePrimes();
+        final int count = 5000;
+
+        final long[] expectedWords = new long[(count + 63) / 64];
+        final long[] actualWords = new long[(count + 63) / 64];
+        scalar.sieve(basePrimes, 1, count, expectedWords);
+        kernel.sieve(basePrimes, 1, count, actualWords);
+
+        final int[] expected = new int[count];
+        final int[] actual = new int[count];
+        final int found = scalar.extract(expectedWords, count, 1, expected, 0);
+
+        return Arrays.equals(expectedWords, actualWords)
+                && kernel.count(actualWords, count) == found
+                && kernel.extract(actualWords, count, 1, actual, 0) == found
+                && Arrays.equals(expected, actual);
+    }
+}
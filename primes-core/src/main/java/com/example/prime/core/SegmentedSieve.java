@@ -3,84 +3,279 @@ package com.example.prime.core;
 import static java.util.Objects.nonNull;
 
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
 
 /**
  * A modified Segmented Sieve of Erastosthenes that can use multiple threads
  * to calculate its primes.
+ *
+ * Only odd values are sieved, in bitmaps of {@link #BUFFER_ODDS} bits that
+ * each thread allocates once and then reuses for every segment. The inner
+ * loops are delegated to a {@link SegmentKernel}.
+ *
+ * Each bitmap is recorded as a Flight Recorder {@link SegmentEvent}, and
+ * {@link #primesUpTo(int)} also records a {@link SieveTaskEvent} for each of
+ * its tasks and a {@link MergeEvent} for each bitmap's primes. The per bitmap
+ * events are only created if they are being recorded when a task or range
+ * starts, and are then reused for each of its bitmaps.
  */
-public class SegmentedSieve implements PrimeSupplier {
+public class SegmentedSieve implements StreamingPrimeSupplier, HeapEstimator {
+
+    /** Number of odd values sieved at once by each thread, 32KB of bitmap */
+    public static final int BUFFER_ODDS = 1 << 18;
+
+    // every odd prime up to sqrt(INT_MAX), enough to sieve any int
+    private static final int[] BASE_PRIMES = oddPrimesUpTo(46341);
 
     private final ExecutorService executor;
 
+    // number of segments calculated at once by stream()
+    private final int streamWindow;
+
+    // sieves and extracts the primes in each segment
+    private final SegmentKernel kernel;
+
+    // the bitmap used by each thread
+    private final ThreadLocal<long[]> buffers =
+            ThreadLocal.withInitial(() -> new long[BUFFER_ODDS / 64]);
+
     /**
      * Construct a new {@link SegmentedSieve}
      *
      * @param executor service that executes the segment calculations
      */
     public SegmentedSieve(final ExecutorService executor) {
+        this(executor, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construct a new {@link SegmentedSieve}
+     *
+     * @param executor  service that executes the segment calculations
+     * @param kernel    sieves and extracts the primes in each segment
+     */
+    public SegmentedSieve(
+            final ExecutorService executor,
+            final SegmentKernel kernel) {
+        this(executor, 2 * Runtime.getRuntime().availableProcessors(), kernel);
+    }
+
+    /**
+     * Construct a new {@link SegmentedSieve}
+     *
+     * @param executor      service that executes the segment calculations
+     * @param streamWindow  number of segments that {@link #stream(int,
+     *                      IntConsumer)} calculates at once
+     */
+    public SegmentedSieve(
+            final ExecutorService executor,
+            final int streamWindow) {
+
+        this(executor, streamWindow, ScalarSegmentKernel.INSTANCE);
+    }
+
+    /**
+     * Construct a new {@link SegmentedSieve}
+     *
+     * @param executor      service that executes the segment calculations
+     * @param streamWindow  number of segments that {@link #stream(int,
+     *                      IntConsumer)} calculates at once
+     * @param kernel        sieves and extracts the primes in each segment
+     */
+    public SegmentedSieve(
+            final ExecutorService executor,
+            final int streamWindow,
+            final SegmentKernel kernel) {
+
         nonNull(executor);
+        nonNull(kernel);
+
+        if ( streamWindow < 1 ) {
+            throw new IllegalArgumentException(
+                    "The stream window must be at least 1");
+        }
+
         this.executor = executor;
+        this.streamWindow = streamWindow;
+        this.kernel = kernel;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The primes are written straight into a single int[], sized using an
+     * upper bound on the number of primes, by one task per core. Each task
+     * takes the next segment, sieves it into its own bitmap and counts the
+     * primes. It then parks until the segments below have been counted,
+     * which gives the offset at which to write its primes.
+     *
+     * @return an unmodifiable {@link IntList}
+     */
     @Override
     public List<Integer> primesUpTo(int upperBound) throws CalculationException {
-
         if ( upperBound <= 1 ) {
             throw new IllegalArgumentException("There are no primes below 2");
         }
 
-        final int segmentSize = (int) Math.sqrt(upperBound);
+        final int[] primes =
+                new int[(int) HeapEstimator.primeCountUpperBound(upperBound)];
+        primes[0] = 2;
 
-        final List<Callable<List<Integer>>> segmentCalculations =
-                new ArrayList<>(segmentSize + 1);
+        // the odd values in [3,upperBound]
+        final long oddCount = (upperBound + 1L) / 2 - 1;
+        final int segmentCount = (int) ((oddCount + BUFFER_ODDS - 1) / BUFFER_ODDS);
 
-        for ( int lowerBound = 2;
-              lowerBound <= upperBound;
-              lowerBound += segmentSize) {
+        final Extraction extraction = new Extraction(primes, segmentCount);
 
-            // Handle small final segments when upperBound is not a square
-            // number
-            int to = Math.min(upperBound, lowerBound + segmentSize - 1);
+        final int tasks = Math.min(
+                            segmentCount,
+                            Runtime.getRuntime().availableProcessors());
 
-            // Redeclare 'from' as a final, otherwise eclipse complains that
-            // it is not 'effectively final'
-            final int ffrom = lowerBound;
-            segmentCalculations.add( () -> seiveSegment(ffrom, to) );
+        // so that the tasks can tell how long they were queued for
+        final long submitted = System.nanoTime();
+
+        final List<Callable<Void>> calculations = new ArrayList<>(tasks);
+        for ( int i = 0; i < tasks; i++ ) {
+            calculations.add(() -> {
+                extractSegments(extraction, oddCount, upperBound, submitted);
+                return null;
+            });
         }
 
         try {
-            // Calculate the values of the segments
-            final List<Future<List<Integer>>> primeSegments =
-                    executor.invokeAll(segmentCalculations);
-
-            // Inject 2 at the beginning of the data, then unpack each segment
-            // from its Future
-            return Stream.concat( Stream.of(2),
-                                  primeSegments.stream()
-                                               .flatMap(this::unpackFuture) )
-                         // build the resulting stream into a list
-                         .collect(Collectors.toList());
+            for ( final Future<Void> calculation : executor.invokeAll(calculations) ) {
+                calculation.get();
+            }
+        }
+        catch (final InterruptedException ex) {
+            throw new CalculationException(ex);
+        }
+        catch (final ExecutionException ex) {
+            // report the failure that stopped the other tasks
+            throw new CalculationException(extraction.failure());
         }
         catch (final RuntimeException ex) {
-            if (ex.getCause() != null) {
-                // If there's an underlying cause then re-throw it
-                throw new CalculationException(ex.getCause());
-            }
-            else {
-                throw new CalculationException(ex);
+            throw asCalculationException(ex);
+        }
+
+        return new IntList(primes, extraction.offset(segmentCount));
+    }
+
+    /**
+     * Fold every prime in the range [2,upperBound] into a result without
+     * building a list of the primes.
+     *
+     * Each segment is folded into its own result, in ascending order, by a
+     * worker thread. The segment results are then merged in ascending order
+     * using the combiner, so the combiner must be associative but need not be
+     * commutative.
+     *
+     * @param upperBound   largest value that may be folded into the result
+     * @param identity     provides a new, empty, result for each segment
+     * @param accumulator  folds a single prime into a result
+     * @param combiner     merges the result of a segment into the result of
+     *                     the segments below it, returning the merged result
+     *
+     * @return the merged result of all segments
+     *
+     * @throws CalculationException if the calculation cannot be completed
+     */
+    public <R> R reduce(
+            final int upperBound,
+            final Supplier<R> identity,
+            final ObjIntConsumer<R> accumulator,
+            final BinaryOperator<R> combiner) throws CalculationException {
+
+        final List<Future<R>> segments =
+                invokeSegments(
+                    upperBound,
+                    0,
+                    segmentCount(upperBound),
+                    (from, to) -> {
+                        final R result = identity.get();
+                        forEachPrime(from, to, p -> accumulator.accept(result, p));
+                        return result;
+                    });
+
+        try {
+            R result = identity.get();
+            for ( final Future<R> segment : segments ) {
+                result = combiner.apply(result, segment.get());
             }
+            return result;
         }
-        catch (final InterruptedException  ex) {
+        catch (final InterruptedException | ExecutionException ex) {
             throw new CalculationException(ex);
         }
+        catch (final RuntimeException ex) {
+            throw asCalculationException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Only a small window of segments is calculated at a time, so the memory
+     * used does not depend on the number of primes.
+     */
+    @Override
+    public void stream(
+            final int upperBound,
+            final IntConsumer consumer) throws CalculationException {
+
+        final int segmentCount = segmentCount(upperBound);
+
+        for ( int first = 0; first < segmentCount; first += streamWindow ) {
+            final List<Future<IntList>> window =
+                    invokeSegments(
+                        upperBound,
+                        first,
+                        Math.min(segmentCount, first + streamWindow),
+                        this::sieveRange);
+
+            for ( final Future<IntList> segment : window ) {
+                final IntList primes;
+                try {
+                    primes = segment.get();
+                }
+                catch (final InterruptedException | ExecutionException ex) {
+                    throw new CalculationException(ex);
+                }
+
+                primes.forEachInt(consumer);
+            }
+        }
+    }
+
+    @Override
+    public long estimateHeapBytes(final int upperBound) {
+        // the result is a single int[] sized for the most primes there could
+        // be, the bitmaps belong to the threads and are already allocated
+        return HeapEstimator.primeCountUpperBound(upperBound) * Integer.BYTES;
+    }
+
+    @Override
+    public long estimateStreamingHeapBytes(final int upperBound) {
+        // each segment in the window holds an array of its primes, which may
+        // have grown to twice the size needed
+        final int segmentSize = (int) Math.sqrt(Math.max(upperBound, 2));
+
+        return streamWindow
+                * HeapEstimator.primeCountUpperBound(segmentSize)
+                * Integer.BYTES * 2;
     }
 
     /**
@@ -89,76 +284,450 @@ public class SegmentedSieve implements PrimeSupplier {
      * @param lowerBound  smallest value that may appear in the list
      * @param upperBound  largest value that may appear in the list
      *
-     * @return list of prime numbers in the segment
+     * @return unmodifiable list of prime numbers in the segment
      */
-    public List<Integer> seiveSegment(
+    public IntList seiveSegment(
             final int lowerBound,
             final int upperBound) {
 
-        // number of odd values in the interval. '(upperBound & 1)' corrects for
-        // an off by one error if 'lowerBound' is an odd number
-        final int numOdds =
-                (upperBound & 1) + (upperBound - lowerBound) / 2;
+        return sieveRange(lowerBound, upperBound);
+    }
 
-        final BitSet oddPrimeCandidates = new BitSet(numOdds);
-        oddPrimeCandidates.set(0, numOdds);
+    /**
+     * The odd primes up to sqrt(Integer.MAX_VALUE), enough to sieve any
+     * segment with a {@link SegmentKernel}
+     *
+     * @return a copy of the primes in ascending order
+     */
+    public static int[] basePrimes() {
+        return BASE_PRIMES.clone();
+    }
 
-        // Remove all the multiples of each odd number up to sqrt(upperBound) 
-        for ( int oddFactor = 3;
-              oddFactor * oddFactor <= upperBound;
-              oddFactor += 2) {
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
 
-            int smallestMultiple = 
-                    ((lowerBound + oddFactor - 1) / oddFactor) * oddFactor;
+    /**
+     * The number of segments of ~sqrt(upperBound) values needed to cover the
+     * range [2,upperBound]
+     */
+    private static int segmentCount(final int upperBound) {
+        if ( upperBound <= 1 ) {
+            throw new IllegalArgumentException("There are no primes below 2");
+        }
+
+        final int segmentSize = (int) Math.sqrt(upperBound);
+
+        return (int) ((upperBound - 2L) / segmentSize + 1);
+    }
 
-            // start value must be odd as even numbers have already been
-            // excluded
-            if ((smallestMultiple & 1) == 0) {
-                smallestMultiple += oddFactor;
+    /**
+     * Split the range [2,upperBound] into segments of ~sqrt(upperBound) values
+     * and calculate some of them on the executor.
+     *
+     * @param upperBound  largest value that may appear in any segment
+     * @param first       index of the first segment to calculate
+     * @param last        index after the last segment to calculate
+     * @param segment     calculation to perform on each segment [from,to]
+     *
+     * @return the result of each segment, in ascending order
+     */
+    private <R> List<Future<R>> invokeSegments(
+            final int upperBound,
+            final int first,
+            final int last,
+            final SegmentCalculation<R> segment) throws CalculationException {
+
+        final int segmentSize = (int) Math.sqrt(upperBound);
+
+        final List<Callable<R>> segmentCalculations =
+                new ArrayList<>(last - first);
+
+        for ( int i = first; i < last; i++ ) {
+            // Use a long to avoid overflow when upperBound is close to INT_MAX
+            final long lowerBound = 2 + (long) i * segmentSize;
+
+            // Handle small final segments when upperBound is not a square
+            // number
+            final int to = (int) Math.min(upperBound, lowerBound + segmentSize - 1);
+            final int from = (int) lowerBound;
+
+            segmentCalculations.add( () -> segment.calculate(from, to) );
+        }
+
+        try {
+            return executor.invokeAll(segmentCalculations);
+        }
+        catch (final RuntimeException ex) {
+            throw asCalculationException(ex);
+        }
+        catch (final InterruptedException  ex) {
+            throw new CalculationException(ex);
+        }
+    }
+
+    /**
+     * Take segments of odd values in turn, sieve them and write their primes
+     * into the result, until there are none left
+     *
+     * @param oddCount    the number of odd values in [3,upperBound]
+     * @param upperBound  largest value that may appear in the result
+     * @param submitted   System.nanoTime() when the task was submitted
+     */
+    private void extractSegments(
+            final Extraction extraction,
+            final long oddCount,
+            final int upperBound,
+            final long submitted) throws InterruptedException {
+
+        final SieveTaskEvent task =
+                FlightRecorderEvents.AVAILABLE ? new SieveTaskEvent() : null;
+        if ( task != null ) {
+            task.queued = System.nanoTime() - submitted;
+            task.begin();
+        }
+
+        final SegmentEvent event =
+                FlightRecorderEvents.AVAILABLE ? SegmentEvent.forTask() : null;
+        final MergeEvent merge =
+                FlightRecorderEvents.AVAILABLE ? MergeEvent.forTask() : null;
+
+        final long[] words = buffers.get();
+        int segments = 0;
+
+        try {
+            for ( int segment = extraction.nextSegment();
+                  segment < extraction.segmentCount;
+                  segment = extraction.nextSegment() ) {
+
+                final long skipped = (long) segment * BUFFER_ODDS;
+                final long lowOdd = 3 + 2 * skipped;
+                final int count = (int) Math.min(BUFFER_ODDS, oddCount - skipped);
+
+                sieve(event, segment, lowOdd, count, words);
+                final int found = kernel.count(words, count);
+                segments++;
+
+                final long waitStart = merge != null ? System.nanoTime() : 0;
+                if ( merge != null ) {
+                    merge.begin();
+                }
+
+                final int offset = extraction.awaitOffset(segment);
+                extraction.publishOffset(segment + 1, offset + found);
+
+                if ( merge != null ) {
+                    merge.waited = System.nanoTime() - waitStart;
+                }
+
+                kernel.extract(words, count, lowOdd, extraction.primes, offset);
+
+                if ( merge != null ) {
+                    merge.end();
+                }
+                if ( merge != null && merge.shouldCommit() ) {
+                    merge.segment = segment;
+                    merge.offset = offset;
+                    merge.primes = found;
+                    merge.commit();
+                }
             }
+        }
+        catch ( final InterruptedException | RuntimeException | Error ex ) {
+            // Don't leave the other tasks waiting for this one
+            extraction.abort(ex);
+            throw ex;
+        }
+        finally {
+            if ( task != null && task.shouldCommit() ) {
+                task.upto = upperBound;
+                task.segments = segments;
+                task.commit();
+            }
+        }
+    }
 
-            // find all odd composite numbers
-            for (int composite = smallestMultiple; 
-                 composite <= upperBound;
-                 composite += 2*oddFactor) {
+    /**
+     * Sieve a bitmap with the kernel, recording a {@link SegmentEvent}
+     *
+     * @param event    reused to record the bitmap, or null if not recording
+     * @param segment  index of the bitmap within the calculation or range
+     */
+    private void sieve(
+            final SegmentEvent event,
+            final int segment,
+            final long lowOdd,
+            final int count,
+            final long[] words) {
+
+        if ( event != null ) {
+            event.begin();
+        }
+
+        kernel.sieve(BASE_PRIMES, lowOdd, count, words);
+
+        if ( event != null ) {
+            event.end();
+        }
+        if ( event != null && event.shouldCommit() ) {
+            event.segment = segment;
+            event.low = lowOdd;
+            event.high = lowOdd + 2L * (count - 1);
+            event.kernel = kernel.toString();
+            event.commit();
+        }
+    }
+
+    /**
+     * Find the primes in the range [lowerBound, upperBound] on the calling
+     * thread, one bitmap at a time
+     */
+    private IntList sieveRange(final int lowerBound, final int upperBound) {
+        final RangePrimes primes =
+                new RangePrimes(lowerBound <= 2 && upperBound >= 2);
+
+        forEachBitmap(lowerBound, upperBound, primes::extract);
+
+        return primes.toList();
+    }
+
+    /**
+     * Pass each prime in the range [lowerBound, upperBound] to the consumer in
+     * ascending order, without allocating. The consumer must not use this
+     * sieve.
+     */
+    private void forEachPrime(
+            final int lowerBound,
+            final int upperBound,
+            final IntConsumer consumer) {
+
+        if ( lowerBound <= 2 && upperBound >= 2 ) {
+            consumer.accept(2);
+        }
+
+        forEachBitmap(lowerBound, upperBound, (words, count, lowOdd) -> {
+            // map the set bits back into prime numbers
+            final int wordCount = (count + 63) >>> 6;
+            for ( int i = 0; i < wordCount; i++ ) {
+                final long base = lowOdd + ((long) i << 7);
+
+                for ( long bits = words[i]; bits != 0; bits &= bits - 1 ) {
+                    consumer.accept(
+                        (int) (base + 2 * Long.numberOfTrailingZeros(bits)));
+                }
+            }
+        });
+    }
+
+    /**
+     * Sieve the odd values in the range [lowerBound, upperBound] on the
+     * calling thread, one bitmap at a time, passing each sieved bitmap to the
+     * visitor in ascending order
+     */
+    private void forEachBitmap(
+            final int lowerBound,
+            final int upperBound,
+            final BitmapVisitor visitor) {
+
+        final SegmentEvent event =
+                FlightRecorderEvents.AVAILABLE ? SegmentEvent.forTask() : null;
+
+        final long[] words = buffers.get();
+        int segment = 0;
+
+        // 2 is the only even prime and 1 isn't prime, start at the first odd
+        // value above them
+        for ( long lowOdd = Math.max(lowerBound, 3) | 1;
+              lowOdd <= upperBound;
+              lowOdd += 2L * BUFFER_ODDS ) {
+
+            final int count =
+                    (int) Math.min(BUFFER_ODDS, (upperBound - lowOdd) / 2 + 1);
+
+            sieve(event, segment++, lowOdd, count, words);
+            visitor.visit(words, count, lowOdd);
+        }
+    }
+
+    /**
+     * The odd primes up to bound, using a simple sieve
+     */
+    private static int[] oddPrimesUpTo(final int bound) {
+        final boolean[] composite = new boolean[bound + 1];
+        final int[] primes = new int[bound / 2];
+        int count = 0;
 
-                int compositeIndex = composite - lowerBound;
-                oddPrimeCandidates.clear(compositeIndex/2);
+        for ( int i = 3; i <= bound; i += 2 ) {
+            if ( !composite[i] ) {
+                primes[count++] = i;
+                for ( long j = (long) i * i; j <= bound; j += 2 * i ) {
+                    composite[(int) j] = true;
+                }
             }
         }
 
-        // need to add 1 if the lowerBound is even to make sure we get odd
-        // values out of the mapping function
-        final int toOdd = ((lowerBound & 1) == 0) ? 1 : 0;
+        return Arrays.copyOf(primes, count);
+    }
+
+    /**
+     * Converts the exception raised while calculating a segment into a
+     * {@link CalculationException}
+     */
+    private static CalculationException asCalculationException(
+            final RuntimeException ex) {
 
-        // map the candidate indices back into prime numbers
-        return oddPrimeCandidates.stream()
-                            .map(i -> lowerBound + 2*i + toOdd)
-                            .boxed()
-                            .collect(Collectors.toList());
+        if (ex.getCause() != null) {
+            // If there's an underlying cause then re-throw it
+            return new CalculationException(ex.getCause());
+        }
+        else {
+            return new CalculationException(ex);
+        }
     }
 
-    @Override
-    public String toString() {
-        return getClass().getSimpleName();
+    /**
+     * A calculation over the segment [from,to]
+     */
+    @FunctionalInterface
+    private interface SegmentCalculation<R> {
+        R calculate(int from, int to);
     }
 
     /**
-     * Helper function to retrieve the primes from a Future as part of a stream
-     * operation.
-     *
-     * @param future  containing the data
-     *
-     * @return stream of integer data
-     *
-     * @throws RuntimeException if the Future contains an error
+     * Receives a sieved bitmap of count odd values, starting at lowOdd
      */
-    private Stream<Integer> unpackFuture(final Future<List<Integer>> future) {
-        try {
-            return future.get().stream();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException(e);
+    @FunctionalInterface
+    private interface BitmapVisitor {
+        void visit(long[] words, int count, long lowOdd);
+    }
+
+    /**
+     * Collects the primes of a range from its bitmaps, growing as needed
+     */
+    private final class RangePrimes {
+
+        private int[] primes;
+        private int size;
+
+        RangePrimes(final boolean includeTwo) {
+            primes = includeTwo ? new int[] { 2 } : new int[0];
+            size = primes.length;
+        }
+
+        void extract(final long[] words, final int count, final long lowOdd) {
+            // a range that fits into a single bitmap is sized exactly
+            final int found = kernel.count(words, count);
+            if ( size + found > primes.length ) {
+                primes = Arrays.copyOf(
+                            primes,
+                            Math.max(size + found, 2 * primes.length));
+            }
+
+            size += kernel.extract(words, count, lowOdd, primes, size);
+        }
+
+        IntList toList() {
+            return new IntList(primes, size);
         }
     }
 
+    /**
+     * The state shared by the tasks that write the primes into the result.
+     * Segment i's primes start at offset(i), which is only known once every
+     * segment below it has been counted.
+     */
+    private static final class Extraction {
+
+        final int[] primes;
+        final int segmentCount;
+
+        private final AtomicInteger next = new AtomicInteger();
+
+        // offset of each segment's primes, -1 until known. The primes of the
+        // odd segments start after 2.
+        private final AtomicIntegerArray offsets;
+
+        // the task parked waiting for each offset, if any
+        private final AtomicReferenceArray<Thread> waiters;
+
+        // the first failure of any task, stops the others
+        private volatile Throwable failure;
+
+        Extraction(final int[] primes, final int segmentCount) {
+            this.primes = primes;
+            this.segmentCount = segmentCount;
+            this.offsets = new AtomicIntegerArray(segmentCount + 1);
+            this.waiters = new AtomicReferenceArray<>(segmentCount + 1);
+
+            for ( int i = 1; i <= segmentCount; i++ ) {
+                offsets.lazySet(i, -1);
+            }
+            offsets.set(0, 1);
+        }
+
+        int nextSegment() {
+            return next.getAndIncrement();
+        }
+
+        int offset(final int segment) {
+            return offsets.get(segment);
+        }
+
+        void publishOffset(final int segment, final int offset) {
+            offsets.set(segment, offset);
+            LockSupport.unpark(waiters.get(segment));
+        }
+
+        /**
+         * Wait for the offset of a segment. Segments are taken in ascending
+         * order, so the ones below are already being sieved by running tasks.
+         * The task parks while it waits rather than spinning, so that it
+         * doesn't take the core from the task it is waiting for, or from
+         * other calculations sharing the executor.
+         */
+        int awaitOffset(final int segment) throws InterruptedException {
+            int offset = offsets.get(segment);
+            if ( offset >= 0 ) {
+                return offset;
+            }
+
+            // publishOffset sets the offset before reading the waiter, so
+            // once registered the offset is either seen below or the task is
+            // unparked
+            waiters.set(segment, Thread.currentThread());
+            try {
+                while ( (offset = offsets.get(segment)) < 0 ) {
+                    if ( failure != null ) {
+                        throw new IllegalStateException("Another segment failed");
+                    }
+                    if ( Thread.interrupted() ) {
+                        throw new InterruptedException();
+                    }
+                    LockSupport.park(this);
+                }
+                return offset;
+            }
+            finally {
+                waiters.set(segment, null);
+            }
+        }
+
+        void abort(final Throwable cause) {
+            synchronized ( this ) {
+                if ( failure == null ) {
+                    failure = cause;
+                }
+            }
+
+            // wake the waiting tasks so that they see the failure
+            for ( int i = 0; i <= segmentCount; i++ ) {
+                LockSupport.unpark(waiters.get(i));
+            }
+        }
+
+        Throwable failure() {
+            return failure;
+        }
+    }
 }
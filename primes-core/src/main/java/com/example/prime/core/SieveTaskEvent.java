@@ -0,0 +1,33 @@
+package com.example.prime.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One of the tasks that {@link SegmentedSieve#primesUpTo(int)} runs on its
+ * executor
+ */
+@Name("com.example.prime.SieveTask")
+@Label("Sieve Task")
+@Category({ "Primes", "Sieve" })
+@Description("A worker task that sieves and merges segments until there are "
+                + "none left")
+@StackTrace(false)
+final class SieveTaskEvent extends jdk.jfr.Event {
+
+    @Label("Upper Bound")
+    int upto;
+
+    @Label("Segments")
+    @Description("Number of bitmaps sieved by the task")
+    int segments;
+
+    @Label("Queued")
+    @Description("Time between submitting the task and a worker starting it")
+    @Timespan(Timespan.NANOSECONDS)
+    long queued;
+}
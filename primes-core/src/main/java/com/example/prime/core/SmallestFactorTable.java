@@ -0,0 +1,114 @@
+package com.example.prime.core;
+
+/**
+ * The smallest prime factor of every value in the range [0,bound], built by
+ * {@link LinearSieve#smallestFactors(int)}.
+ *
+ * Even values are left out, their smallest factor is 2. The smallest factor
+ * of an odd composite is at most sqrt(Integer.MAX_VALUE), so it fits into a
+ * char and the table needs ~1 byte per value. Any value in the range can be
+ * factorized by repeatedly dividing by its smallest factor.
+ */
+public final class SmallestFactorTable {
+
+    /**
+     * The most distinct prime factors of any int,
+     * 2*3*5*7*11*13*17*19*23 &lt;= Integer.MAX_VALUE &lt; 2*3*...*23*29
+     */
+    public static final int MAX_DISTINCT_FACTORS = 9;
+
+    private final int bound;
+
+    // oddFactors[i] is the smallest factor of 2i+1, or 0 if it is prime or 1
+    private final char[] oddFactors;
+
+    // every prime up to bound in ascending order
+    private final int[] primes;
+    private final int primeCount;
+
+    SmallestFactorTable(
+            final int bound,
+            final char[] oddFactors,
+            final int[] primes,
+            final int primeCount) {
+
+        this.bound = bound;
+        this.oddFactors = oddFactors;
+        this.primes = primes;
+        this.primeCount = primeCount;
+    }
+
+    /**
+     * Largest value in the table
+     */
+    public int bound() {
+        return bound;
+    }
+
+    /**
+     * The smallest prime factor of n, n itself if it is prime
+     *
+     * @throws IllegalArgumentException if n is outside the range [2,bound]
+     */
+    public int smallestFactor(final int n) {
+        if ( n < 2 || n > bound ) {
+            throw new IllegalArgumentException(
+                    n + " is outside the range [2," + bound + "]");
+        }
+
+        if ( (n & 1) == 0 ) {
+            return 2;
+        }
+
+        final int factor = oddFactors[n >>> 1];
+        return factor == 0 ? n : factor;
+    }
+
+    /**
+     * Factorize n into distinct primes and their exponents, in ascending
+     * order of the primes. 1 has no factors.
+     *
+     * @param n          value to factorize
+     * @param primes     receives the distinct prime factors, must have room
+     *                   for {@link #MAX_DISTINCT_FACTORS}
+     * @param exponents  receives the exponent of each prime
+     *
+     * @return the number of distinct prime factors
+     *
+     * @throws IllegalArgumentException if n is outside the range [1,bound]
+     */
+    public int factorize(
+            final int n,
+            final int[] primes,
+            final int[] exponents) {
+
+        if ( n < 1 || n > bound ) {
+            throw new IllegalArgumentException(
+                    n + " is outside the range [1," + bound + "]");
+        }
+
+        int distinct = 0;
+        int remaining = n;
+        while ( remaining > 1 ) {
+            final int prime = smallestFactor(remaining);
+
+            int exponent = 0;
+            do {
+                remaining /= prime;
+                exponent++;
+            } while ( remaining > 1 && smallestFactor(remaining) == prime );
+
+            primes[distinct] = prime;
+            exponents[distinct] = exponent;
+            distinct++;
+        }
+        return distinct;
+    }
+
+    /**
+     * The primes up to bound, in ascending order
+     */
+    public IntList primes() {
+        return new IntList(primes, primeCount);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.prime.core;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A {@link PrimeSupplier} that can also pass its primes to a consumer as they
+ * are calculated, so that ranges too large for a list can be answered in a
+ * small, fixed amount of memory.
+ */
+public interface StreamingPrimeSupplier extends PrimeSupplier {
+
+    /**
+     * Pass every prime in the range [2,upperBound] to the consumer in
+     * ascending order, on the calling thread.
+     *
+     * @param upperBound  largest value that may be passed to the consumer
+     * @param consumer    receives each prime. Any exception it throws is
+     *                    passed on to the caller unchanged.
+     *
+     * @throws CalculationException if the calculation cannot be completed
+     */
+    void stream(int upperBound, IntConsumer consumer) throws CalculationException;
+
+    /**
+     * Predict the peak heap needed by {@link #stream(int, IntConsumer)}
+     *
+     * @param upperBound the largest value that may be streamed
+     *
+     * @return approximate number of bytes
+     */
+    long estimateStreamingHeapBytes(int upperBound);
+}
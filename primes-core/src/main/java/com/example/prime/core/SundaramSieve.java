@@ -9,7 +9,7 @@ import java.util.List;
 /**
  * Calculates primes using the Sieve of Sundaram algorithm
  */
-public class SundaramSieve implements PrimeSupplier {
+public class SundaramSieve implements PrimeSupplier, HeapEstimator {
 
     @Override
     public List<Integer> primesUpTo(final int upperBound) throws CalculationException {
@@ -59,6 +59,18 @@ public class SundaramSieve implements PrimeSupplier {
                       .collect(toCollection(()->primes));
     }
 
+    @Override
+    public long estimateHeapBytes(final int upperBound) {
+        // bitset of the odd candidates, a list presized with a slot for every
+        // odd candidate and the boxed primes
+        final long upperIdx = upperBound / 2;
+
+        return upperIdx / 8
+                + upperIdx * REFERENCE_BYTES
+                + HeapEstimator.primeCountUpperBound(upperBound)
+                        * BOXED_INTEGER_BYTES;
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName();
@@ -0,0 +1,177 @@
+package com.example.prime.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+/**
+ * Check the factorizations of {@link LinearSieve} and {@link ArithmeticSieve}
+ * and the {@link ArithmeticFunction}s calculated from them
+ */
+public class ArithmeticSieveTest {
+
+    private static final ExecutorService executor =
+            Executors.newFixedThreadPool(2);
+
+    private final int[] primes = new int[SmallestFactorTable.MAX_DISTINCT_FACTORS];
+    private final int[] exponents = new int[SmallestFactorTable.MAX_DISTINCT_FACTORS];
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * The table's smallest factors and factorizations agree with trial
+     * division
+     */
+    @Test
+    public void testSmallestFactorTable() {
+        final SmallestFactorTable table = LinearSieve.smallestFactors(10000);
+
+        for ( int n = 2; n <= 10000; n++ ) {
+            assertEquals(trialFactors(n).get(0).intValue(), table.smallestFactor(n));
+            assertEquals(trialFactors(n), factors(table.factorize(n, primes, exponents)));
+        }
+        assertEquals(0, table.factorize(1, primes, exponents));
+    }
+
+    /**
+     * Every segment, including those that span the boundary between
+     * segments, is factorized in ascending order
+     */
+    @Test
+    public void testSegments() throws CalculationException {
+        final int from = ArithmeticSieve.SEGMENT_SIZE - 100;
+        final int to = 3 * ArithmeticSieve.SEGMENT_SIZE + 7;
+
+        final List<Integer> visited = new ArrayList<>();
+        new ArithmeticSieve(executor, 2).forEachSegment(from, to, segment -> {
+            for ( int n = segment.from(); n <= segment.to(); n++ ) {
+                assertEquals(
+                        trialFactors(n),
+                        factors(segment.factorize(n, primes, exponents)));
+                visited.add(n);
+            }
+        });
+
+        assertEquals(to - from + 1, visited.size());
+        assertEquals(from, visited.get(0).intValue());
+        assertEquals(to, visited.get(visited.size() - 1).intValue());
+    }
+
+    /**
+     * The largest values, whose factors include the largest base prime and
+     * primes beyond the base primes, are factorized without overflowing
+     */
+    @Test
+    public void testTopOfRange() {
+        final FactorSegment segment =
+                new FactorSegment(
+                        LinearSieve.smallestFactors(46341),
+                        Integer.MAX_VALUE - 1000,
+                        Integer.MAX_VALUE);
+
+        for ( int n = Integer.MAX_VALUE - 1000; n > 0; n++ ) {
+            assertEquals(
+                    trialFactors(n),
+                    factors(segment.factorize(n, primes, exponents)));
+        }
+    }
+
+    /**
+     * The functions of the first values, from OEIS A000010, A008683, A000203
+     * and A000005
+     */
+    @Test
+    public void testFunctions() {
+        assertArrayEquals(
+                new long[] { 1, 1, 2, 2, 4, 2, 6, 4, 6, 4, 10, 4 },
+                apply(ArithmeticFunction.PHI, 12));
+        assertArrayEquals(
+                new long[] { 1, -1, -1, 0, -1, 1, -1, 0, 0, 1, -1, 0 },
+                apply(ArithmeticFunction.MU, 12));
+        assertArrayEquals(
+                new long[] { 1, 3, 4, 7, 6, 12, 8, 15, 13, 18, 12, 28 },
+                apply(ArithmeticFunction.SIGMA, 12));
+        assertArrayEquals(
+                new long[] { 1, 2, 2, 3, 2, 4, 2, 4, 3, 4, 2, 6 },
+                apply(ArithmeticFunction.D, 12));
+    }
+
+    /**
+     * Functions are identified by their labels
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testUnknownFunction() {
+        ArithmeticFunction.forLabel("lambda");
+    }
+
+    /**
+     * The range must be positive and non-empty
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidRange() throws CalculationException {
+        new ArithmeticSieve(executor).forEachSegment(0, 10, segment -> { });
+    }
+
+    /**
+     * Apply the function to [1,to] with a single segment
+     */
+    private long[] apply(final ArithmeticFunction function, final int to) {
+        final FactorSegment segment =
+                new FactorSegment(LinearSieve.smallestFactors(100), 1, to);
+
+        final long[] values = new long[to];
+        for ( int n = 1; n <= to; n++ ) {
+            values[n - 1] = function.apply(
+                                n,
+                                primes,
+                                exponents,
+                                segment.factorize(n, primes, exponents));
+        }
+        return values;
+    }
+
+    /**
+     * Expand the last factorization into its primes with multiplicity
+     */
+    private List<Integer> factors(final int distinct) {
+        final List<Integer> factors = new ArrayList<>();
+        for ( int k = 0; k < distinct; k++ ) {
+            for ( int e = 0; e < exponents[k]; e++ ) {
+                factors.add(primes[k]);
+            }
+        }
+        return factors;
+    }
+
+    /**
+     * The prime factors of n, by trial division
+     */
+    private static List<Integer> trialFactors(final int n) {
+        final List<Integer> factors = new ArrayList<>();
+        int remaining = n;
+        for ( int d = 2; (long) d * d <= remaining; d++ ) {
+            while ( remaining % d == 0 ) {
+                factors.add(d);
+                remaining /= d;
+            }
+        }
+        if ( remaining > 1 ) {
+            factors.add(remaining);
+        }
+        return factors;
+    }
+}
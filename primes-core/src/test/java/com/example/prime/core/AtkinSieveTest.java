@@ -0,0 +1,68 @@
+package com.example.prime.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+/**
+ * Test cases for the parts of {@link AtkinSieve} that are not covered by
+ * {@link PrimeSupplierTest}
+ */
+public class AtkinSieveTest {
+
+    private static final ExecutorService executor =
+            Executors.newFixedThreadPool(2);
+
+    // Object under test
+    private final AtkinSieve sieve = new AtkinSieve(executor);
+
+    // Reference implementation
+    private final SegmentedSieve segmented = new SegmentedSieve(executor);
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Solutions of the forms that straddle the bitmaps are toggled in the
+     * right bitmap, exactly once
+     */
+    @Test
+    public void testSpanningBuffers() throws CalculationException {
+        final int bound = 4 * SegmentedSieve.BUFFER_ODDS + 17;
+
+        assertEquals(segmented.primesUpTo(bound), sieve.primesUpTo(bound));
+        assertEquals(
+                segmented.seiveSegment(1048577, bound),
+                sieve.seiveSegment(1048577, bound));
+    }
+
+    /**
+     * The largest values are sieved without overflowing
+     */
+    @Test
+    public void testTopOfRange() {
+        assertEquals(
+                segmented.seiveSegment(Integer.MAX_VALUE - 100000, Integer.MAX_VALUE),
+                sieve.seiveSegment(Integer.MAX_VALUE - 100000, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Segments starting at 1 include 3, which none of the forms produce
+     */
+    @Test
+    public void testSmallSegments() {
+        for ( int to = 2; to < 200; to++ ) {
+            assertEquals(segmented.seiveSegment(0, to), sieve.seiveSegment(0, to));
+        }
+    }
+}
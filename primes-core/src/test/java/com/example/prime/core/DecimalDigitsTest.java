@@ -0,0 +1,37 @@
+package com.example.prime.core;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Check {@link DecimalDigits} against {@link Integer#toString(int)}
+ */
+public class DecimalDigitsTest {
+
+    /**
+     * Values either side of every change in the number of digits, and the
+     * largest int, are written exactly
+     */
+    @Test
+    public void testMatchesToString() {
+        final byte[] buffer = new byte[DecimalDigits.MAX_DIGITS + 3];
+
+        for ( long power = 1; power <= Integer.MAX_VALUE; power *= 10 ) {
+            for ( final long value : new long[] { power - 1, power, power + 1 } ) {
+                assertFormats((int) value, buffer);
+            }
+        }
+        assertFormats(Integer.MAX_VALUE, buffer);
+    }
+
+    private static void assertFormats(final int value, final byte[] buffer) {
+        // write after a prefix to check the position is honoured
+        final int end = DecimalDigits.format(value, buffer, 3);
+
+        assertEquals(
+                Integer.toString(value),
+                new String(buffer, 3, end - 3, US_ASCII));
+    }
+}
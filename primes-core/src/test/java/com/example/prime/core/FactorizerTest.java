@@ -0,0 +1,133 @@
+package com.example.prime.core;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Check that {@link Factorizer} finds the correct factors across the full
+ * range of longs, including the hard cases for each stage of the algorithm.
+ */
+public class FactorizerTest {
+
+    private static Factorizer factorizer;
+
+    @BeforeClass
+    public static void setup() throws CalculationException {
+        factorizer = new Factorizer(
+                            new EratosthenesSieve(),
+                            Factorizer.DEFAULT_TRIAL_BOUND);
+    }
+
+    /**
+     * Numbers with only small factors are handled by trial division
+     */
+    @Test
+    public void testSmallFactors() {
+        assertEquals(asList(2L), factorizer.factor(2));
+        assertEquals(asList(2L, 2L, 3L), factorizer.factor(12));
+        assertEquals(asList(3L, 5L, 17L, 257L, 65537L), factorizer.factor(4294967295L));
+        assertEquals(asList(2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L,
+                            2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L,
+                            2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L,
+                            2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L, 2L,
+                            2L, 2L, 2L, 2L, 2L, 2L),
+                     factorizer.factor(1L << 62));
+    }
+
+    /**
+     * Products of two large primes need Pollard's rho
+     */
+    @Test
+    public void testSemiPrimes() {
+        // 2^31 - 1 and 2^31 + 11
+        assertEquals(
+                asList(2147483647L, 2147483659L),
+                factorizer.factor(2147483647L * 2147483659L));
+
+        // the largest prime below sqrt(Long.MAX_VALUE), squared
+        assertEquals(
+                asList(3037000493L, 3037000493L),
+                factorizer.factor(3037000493L * 3037000493L));
+
+        // 2^63 - 1 == 7^2 * 73 * 127 * 337 * 92737 * 649657
+        assertEquals(
+                asList(7L, 7L, 73L, 127L, 337L, 92737L, 649657L),
+                factorizer.factor(Long.MAX_VALUE));
+    }
+
+    /**
+     * Large primes are returned as their own factor
+     */
+    @Test
+    public void testLargePrimes() {
+        // largest prime that fits in a long
+        assertEquals(
+                asList(9223372036854775783L),
+                factorizer.factor(9223372036854775783L));
+
+        assertTrue(factorizer.isPrime(9223372036854775783L));
+        assertTrue(factorizer.isPrime(2147483647L));
+        assertFalse(factorizer.isPrime(1));
+        assertFalse(factorizer.isPrime(65536));
+    }
+
+    /**
+     * Strong pseudoprimes to several bases must not fool the primality test
+     */
+    @Test
+    public void testPseudoPrimes() {
+        // Carmichael number
+        assertFalse(factorizer.isPrime(561));
+        // strong pseudoprime to bases 2, 3, 5, 7, 11, 13, 17, 19, 23
+        assertFalse(factorizer.isPrime(3825123056546413051L));
+        assertEquals(
+                asList(149491L, 747451L, 34233211L),
+                factorizer.factor(3825123056546413051L));
+    }
+
+    /**
+     * Compare the primality test against BigInteger for random values
+     */
+    @Test
+    public void testRandomValues() {
+        final Random random = new Random(42);
+
+        for ( int i = 0; i < 2000; i++ ) {
+            final long n = random.nextLong() >>> 1;
+
+            if ( n < 2 ) {
+                continue;
+            }
+
+            assertEquals(
+                    Long.toString(n),
+                    BigInteger.valueOf(n).isProbablePrime(50),
+                    factorizer.isPrime(n));
+
+            final List<Long> factors = factorizer.factor(n);
+            long product = 1;
+            for ( final long factor : factors ) {
+                assertTrue(Long.toString(factor), factorizer.isPrime(factor));
+                product *= factor;
+            }
+            assertEquals(n, product);
+        }
+    }
+
+    /**
+     * Values below 2 cannot be factorized
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidValue() {
+        factorizer.factor(1);
+    }
+}
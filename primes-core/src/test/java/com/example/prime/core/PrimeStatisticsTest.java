@@ -0,0 +1,128 @@
+package com.example.prime.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+/**
+ * Check that {@link PrimeStatistics} calculated segment by segment agree with
+ * statistics calculated directly from a list of primes.
+ */
+public class PrimeStatisticsTest {
+
+    private static final ExecutorService executor =
+            Executors.newFixedThreadPool(4);
+
+    private final SegmentedSieve sieve = new SegmentedSieve(executor);
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Check against well known values for the primes below 1000
+     */
+    @Test
+    public void testKnownValues() throws CalculationException {
+        final PrimeStatistics stats = statisticsUpTo(1000);
+
+        assertEquals(168, stats.getCount());
+        assertEquals(76127, stats.getSum());
+        assertEquals(20, stats.getMaxGap());
+        assertEquals(887, stats.getMaxGapStart());
+        assertEquals(35, stats.getConstellationCount(Constellation.TWIN));
+    }
+
+    /**
+     * Very small bounds produce a single segment containing few primes
+     */
+    @Test
+    public void testSmallBounds() throws CalculationException {
+        for ( int upperBound = 2; upperBound < 50; upperBound++ ) {
+            assertMatchesList(upperBound);
+        }
+    }
+
+    /**
+     * Larger bounds produce many segments, so many constellations and gaps
+     * cross the segment boundaries
+     */
+    @Test
+    public void testLargeBounds() throws CalculationException {
+        assertMatchesList(1000);
+        assertMatchesList(65536);
+        assertMatchesList(1000003);
+    }
+
+    /**
+     * Compare the merged statistics with those calculated from the full list
+     */
+    private void assertMatchesList(final int upperBound)
+            throws CalculationException {
+
+        final List<Integer> primes = new EratosthenesSieve().primesUpTo(upperBound);
+        final Set<Integer> primeSet = new HashSet<>(primes);
+        final PrimeStatistics stats = statisticsUpTo(upperBound);
+
+        assertEquals(primes.size(), stats.getCount());
+        assertEquals(
+                primes.stream().mapToLong(Integer::longValue).sum(),
+                stats.getSum());
+
+        int maxGap = 0;
+        int maxGapStart = 0;
+        for ( int i = 1; i < primes.size(); i++ ) {
+            if ( primes.get(i) - primes.get(i-1) > maxGap ) {
+                maxGap = primes.get(i) - primes.get(i-1);
+                maxGapStart = primes.get(i-1);
+            }
+        }
+        assertEquals(maxGap, stats.getMaxGap());
+        assertEquals(maxGapStart, stats.getMaxGapStart());
+
+        for ( final Constellation constellation : Constellation.values() ) {
+            final List<Integer> expected = new ArrayList<>();
+            for ( final int p : primes ) {
+                boolean match = true;
+                for ( final int offset : constellation.offsets() ) {
+                    match &= primeSet.contains(p + offset);
+                }
+                if ( match ) {
+                    expected.add(p);
+                }
+            }
+
+            assertEquals(
+                    constellation.getLabel() + " up to " + upperBound,
+                    expected,
+                    stats.getConstellations(constellation));
+            assertEquals(
+                    expected.size(),
+                    stats.getConstellationCount(constellation));
+        }
+    }
+
+    private PrimeStatistics statisticsUpTo(final int upperBound)
+            throws CalculationException {
+
+        return sieve.reduce(
+                upperBound,
+                () -> new PrimeStatistics(EnumSet.allOf(Constellation.class)),
+                PrimeStatistics::accept,
+                PrimeStatistics::merge);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.prime.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+/**
+ * Test cases for {@link PrimeStream}
+ */
+public class PrimeStreamTest {
+
+    /**
+     * The stream starts at the first prime no smaller than the start
+     */
+    @Test
+    public void testFrom() {
+        assertArrayEquals(
+                new long[] { 2, 3, 5, 7, 11 },
+                PrimeStream.from(-10).limit(5).toArray());
+        assertArrayEquals(
+                new long[] { 97, 101, 103 },
+                PrimeStream.from(97).limit(3).toArray());
+        assertArrayEquals(
+                new long[] { 101, 103 },
+                PrimeStream.from(98).limit(2).toArray());
+    }
+
+    /**
+     * Both ends of a range are included
+     */
+    @Test
+    public void testRange() throws CalculationException {
+        assertArrayEquals(
+                new long[] { 2, 3, 5, 7 },
+                PrimeStream.range(0, 7).toArray());
+        assertArrayEquals(
+                new long[0],
+                PrimeStream.range(90, 96).toArray());
+        assertArrayEquals(
+                new long[0],
+                PrimeStream.range(10, 2).toArray());
+
+        final int[] expected =
+                new EratosthenesSieve().primesUpTo(3000000)
+                                       .stream()
+                                       .mapToInt(Integer::intValue)
+                                       .toArray();
+        assertArrayEquals(
+                expected,
+                PrimeStream.range(0, 3000000).mapToInt(p -> (int) p).toArray());
+    }
+
+    /**
+     * A parallel stream finds the same primes, in the same order
+     */
+    @Test
+    public void testParallel() {
+        assertEquals(664579, PrimeStream.range(2, 10000000).parallel().count());
+        assertArrayEquals(
+                PrimeStream.range(1000000, 9000000).toArray(),
+                PrimeStream.range(1000000, 9000000).parallel().toArray());
+    }
+
+    /**
+     * A parallel unbounded stream splits off chunks from its start, rather
+     * than sieving values close to {@link PrimeStream#MAX_VALUE}
+     */
+    @Test
+    public void testParallelUnbounded() throws Exception {
+        // a pool of its own, so that the stream is split however many cores
+        // there are
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertArrayEquals(
+                    new long[] { 2, 3, 5, 7, 11, 13, 17, 19, 23, 29 },
+                    pool.submit(
+                            () -> PrimeStream.from(2).parallel().limit(10).toArray())
+                        .get());
+            assertArrayEquals(
+                    PrimeStream.from(1000000).limit(100000).toArray(),
+                    pool.submit(
+                            () -> PrimeStream.from(1000000).parallel().limit(100000).toArray())
+                        .get());
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Splits cover the range in order, without overlapping
+     */
+    @Test
+    public void testSplit() {
+        final Spliterator.OfLong suffix = PrimeStream.spliterator(0, 20000000);
+        final Spliterator.OfLong prefix = suffix.trySplit();
+
+        final long[] primes =
+                LongStream.concat(
+                        longStreamOf(prefix),
+                        longStreamOf(suffix))
+                    .toArray();
+
+        assertArrayEquals(PrimeStream.range(0, 20000000).toArray(), primes);
+
+        // small ranges aren't split
+        assertNull(PrimeStream.spliterator(0, 1000).trySplit());
+    }
+
+    /**
+     * Values beyond the range of an int are sieved with base primes that are
+     * calculated as needed
+     */
+    @Test
+    public void testLargeValues() {
+        final long from = Integer.MAX_VALUE - 1000L;
+        assertArrayEquals(
+                LongStream.rangeClosed(from, from + 2000)
+                          .filter(PrimeStreamTest::isPrime)
+                          .toArray(),
+                PrimeStream.range(from, from + 2000).toArray());
+
+        // needs the primes up to 10^7
+        final long large = 100000000000000L;
+        assertEquals(
+                LongStream.iterate(large, n -> n + 1)
+                          .filter(PrimeStreamTest::isPrime)
+                          .findFirst()
+                          .getAsLong(),
+                PrimeStream.from(large).findFirst().getAsLong());
+    }
+
+    /**
+     * The range can't extend beyond the largest value that can be sieved
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testTooLarge() {
+        PrimeStream.range(0, PrimeStream.MAX_VALUE + 1);
+    }
+
+    private static LongStream longStreamOf(final Spliterator.OfLong spliterator) {
+        return StreamSupport.longStream(spliterator, false);
+    }
+
+    private static boolean isPrime(final long n) {
+        if ( n % 2 == 0 ) {
+            return n == 2;
+        }
+        for ( long f = 3; f * f <= n; f += 2 ) {
+            if ( n % f == 0 ) {
+                return false;
+            }
+        }
+        return n > 1;
+    }
+}
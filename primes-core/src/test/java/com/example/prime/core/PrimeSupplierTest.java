@@ -2,9 +2,13 @@ package com.example.prime.core;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -22,7 +26,6 @@ import org.junit.runners.Parameterized.Parameters;
  * Common test cases for {@link PrimeSupplier} implementations
  *
  * TODO possible further test cases:
- * <li> using INT_MAX as an upper bound
  * <li> timing out or interrupting a calculation
  */
 @RunWith(Parameterized.class)
@@ -43,11 +46,15 @@ public class PrimeSupplierTest {
      * Provides parameters for each test case
      */
     @Parameters(name = "{0}")
-    public static Iterable<Object[]> parameters() {
+    public static Iterable<Object[]> parameters() throws CalculationException {
         return asList(
                     testCase(new EratosthenesSieve()),
                     testCase(new SegmentedSieve(executor)),
-                    testCase(new SundaramSieve()));
+                    testCase(new AtkinSieve(executor)),
+                    testCase(new LinearSieve()),
+                    testCase(new SundaramSieve()),
+                    testCase(new PrimeStreamSupplier()),
+                    testCase(precomputed(100000)));
     }
 
 
@@ -103,6 +110,42 @@ public class PrimeSupplierTest {
         assertThat( source.primesUpTo(10000000), areAllPrime() );
     }
 
+    /**
+     * Check that no primes are missing from the result by comparing against
+     * the known value of pi(10^6)
+     */
+    @Test
+    public void testPrimeCount() throws CalculationException {
+        assertEquals( 78498, source.primesUpTo(1000000).size() );
+    }
+
+    /**
+     * Check that Integer.MAX_VALUE, which is prime, can be used as the upper
+     * bound without overflowing. Only runs for suppliers whose estimate fits
+     * comfortably into the heap, e.g. run with -DargLine=-Xmx5g to include
+     * the linear sieve.
+     *
+     * The Sieve of Eratosthenes, which the precomputed sieve delegates to
+     * here, is left out. Its BitSet can't be sized for Integer.MAX_VALUE + 1
+     * bits.
+     */
+    @Test
+    public void testMaxBound() throws CalculationException {
+        assumeFalse(
+                source instanceof EratosthenesSieve
+                || source instanceof PrecomputedSieve);
+        assumeTrue(
+                source instanceof HeapEstimator
+                && ((HeapEstimator) source).estimateHeapBytes(Integer.MAX_VALUE)
+                        < Runtime.getRuntime().maxMemory() / 4 * 3);
+
+        final List<Integer> primes = source.primesUpTo(Integer.MAX_VALUE);
+
+        // pi(2^31 - 1)
+        assertEquals(105097565, primes.size());
+        assertEquals(Integer.MAX_VALUE, (int) primes.get(primes.size() - 1));
+    }
+
     /**
      * Check that a zero upper limit is rejected
      */
@@ -160,6 +203,18 @@ public class PrimeSupplierTest {
         return true;
     }
 
+    /**
+     * A {@link PrecomputedSieve} that answers small requests from its bitmap
+     * and larger ones from its delegate
+     */
+    private static PrecomputedSieve precomputed(final int bound)
+            throws CalculationException {
+
+        final PrecomputedSieve sieve = new PrecomputedSieve(new EratosthenesSieve());
+        sieve.precompute(bound);
+        return sieve;
+    }
+
     /**
      * Fluent helper method to make specifying sets of test parameters less
      * painful.
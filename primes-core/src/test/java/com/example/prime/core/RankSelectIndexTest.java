@@ -0,0 +1,83 @@
+package com.example.prime.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Check the answers of {@link RankSelectIndex} against the decoded primes
+ */
+public class RankSelectIndexTest {
+
+    /**
+     * Every count, nth, next and previous agrees with the list of primes,
+     * including bounds that end part way through a block and bounds with
+     * several select samples
+     */
+    @Test
+    public void testMatchesPrimes() throws CalculationException {
+        for ( final int bound : new int[] { 2, 3, 4, 1000, 1025, 1000003 } ) {
+            final List<Integer> primes =
+                    new EratosthenesSieve().primesUpTo(bound);
+            final RankSelectIndex index =
+                    PrimeBitmap.of(new EratosthenesSieve(), bound).index();
+
+            assertEquals(bound, index.bound());
+            assertEquals(primes.size(), index.total());
+
+            int count = 0;
+            for ( int x = 0; x <= bound; x++ ) {
+                if ( count < primes.size() && primes.get(count) == x ) {
+                    count++;
+                }
+                assertEquals(count, index.count(x));
+
+                if ( count < primes.size() ) {
+                    assertEquals(primes.get(count).intValue(), index.next(x));
+                }
+                if ( x > 2 ) {
+                    final int below = primes.get(index.count(x - 1) - 1);
+                    assertEquals(below, index.previous(x));
+                }
+            }
+
+            for ( int n = 1; n <= primes.size(); n++ ) {
+                assertEquals(primes.get(n - 1).intValue(), index.nth(n));
+            }
+        }
+    }
+
+    /**
+     * The index only covers the bitmap's range
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testCountBeyondBound() throws CalculationException {
+        PrimeBitmap.of(new EratosthenesSieve(), 100).index().count(101);
+    }
+
+    /**
+     * There are only 25 primes up to 100
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testNthBeyondBound() throws CalculationException {
+        PrimeBitmap.of(new EratosthenesSieve(), 100).index().nth(26);
+    }
+
+    /**
+     * 97 is the largest prime up to 100
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testNoNextPrime() throws CalculationException {
+        PrimeBitmap.of(new EratosthenesSieve(), 100).index().next(97);
+    }
+
+    /**
+     * There are no primes below 2
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testNoPreviousPrime() throws CalculationException {
+        PrimeBitmap.of(new EratosthenesSieve(), 100).index().previous(2);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.prime.core;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+/**
+ * Test cases for the parts of {@link SegmentedSieve} that are not covered by
+ * {@link PrimeSupplierTest}
+ */
+public class SegmentedSieveTest {
+
+    private static final ExecutorService executor =
+            Executors.newFixedThreadPool(2);
+
+    // Object under test, small window to exercise many windows
+    private final SegmentedSieve sieve = new SegmentedSieve(executor, 3);
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Streaming produces the same primes, in the same order, as the list
+     */
+    @Test
+    public void testStream() throws CalculationException {
+        for ( final int upperBound : new int[] { 2, 3, 10, 1000, 1000003 } ) {
+            final List<Integer> streamed = new ArrayList<>();
+            sieve.stream(upperBound, streamed::add);
+
+            assertEquals(sieve.primesUpTo(upperBound), streamed);
+        }
+    }
+
+    /**
+     * Segments include both of their bounds, and 2 if it is in range
+     */
+    @Test
+    public void testSegmentBounds() throws CalculationException {
+        assertEquals(
+                new EratosthenesSieve().primesUpTo(30),
+                sieve.seiveSegment(0, 30));
+        assertEquals(
+                asList(11, 13, 17, 19, 23),
+                sieve.seiveSegment(11, 23));
+    }
+
+    /**
+     * Ranges and lists that need more than one bitmap match a simple sieve
+     */
+    @Test
+    public void testSpanningBuffers() throws CalculationException {
+        final int bound = 4 * SegmentedSieve.BUFFER_ODDS + 17;
+        final List<Integer> expected = new EratosthenesSieve().primesUpTo(bound);
+
+        assertEquals(expected, sieve.primesUpTo(bound));
+        assertEquals(expected, sieve.seiveSegment(-5, bound));
+        assertEquals(
+                expected.subList(expected.indexOf(1048583), expected.size()),
+                sieve.seiveSegment(1048577, bound));
+    }
+
+    /**
+     * The largest values are sieved without overflowing
+     */
+    @Test
+    public void testTopOfRange() {
+        final List<Integer> expected = new ArrayList<>();
+        for ( int n = Integer.MAX_VALUE - 1000; n > 0; n++ ) {
+            if ( isPrime(n) ) {
+                expected.add(n);
+            }
+        }
+
+        assertEquals(
+                expected,
+                sieve.seiveSegment(Integer.MAX_VALUE - 1000, Integer.MAX_VALUE));
+        assertEquals(Integer.MAX_VALUE, (int) expected.get(expected.size() - 1));
+    }
+
+    /**
+     * The kernel leaves out 1 and clears the bits beyond the segment
+     */
+    @Test
+    public void testKernel() throws CalculationException {
+        final SegmentKernel kernel = ScalarSegmentKernel.INSTANCE;
+        final long[] words = new long[2];
+        final int[] primes = new int[50];
+
+        // the odd values in [1,99]
+        kernel.sieve(new int[] { 3, 5, 7, 11 }, 1, 50, words);
+
+        assertEquals(24, kernel.count(words, 50));
+        assertEquals(0, words[0] >>> 50);
+        assertEquals(24, kernel.extract(words, 50, 1, primes, 1));
+        assertEquals(
+                new EratosthenesSieve().primesUpTo(100).subList(1, 25),
+                new IntList(Arrays.copyOfRange(primes, 1, 25), 24));
+    }
+
+    /**
+     * Base primes close to Integer.MAX_VALUE clear their multiple without
+     * stepping the bit index past the end of the range of an int
+     */
+    @Test
+    public void testKernelLargePrimes() {
+        final SegmentKernel kernel = ScalarSegmentKernel.INSTANCE;
+        final int count = SegmentedSieve.BUFFER_ODDS;
+        final long[] words = new long[count / 64];
+
+        // the square of the prime is the 11th odd value in the segment
+        final long square = (long) Integer.MAX_VALUE * Integer.MAX_VALUE;
+        kernel.sieve(new int[] { Integer.MAX_VALUE }, square - 20, count, words);
+
+        assertEquals(count - 1, kernel.count(words, count));
+        assertEquals(0, words[0] & (1L << 10));
+    }
+
+    /**
+     * The list of primes can't be modified
+     */
+    @Test(expected=UnsupportedOperationException.class)
+    public void testUnmodifiable() throws CalculationException {
+        final List<Integer> primes = sieve.primesUpTo(100);
+        assertTrue(primes instanceof IntList);
+
+        primes.set(0, 4);
+    }
+
+    /**
+     * Check that an invalid upper limit is rejected
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testStreamInvalidBounds() throws CalculationException {
+        sieve.stream(1, i -> {});
+    }
+
+    private static boolean isPrime(final int n) {
+        if ( n % 2 == 0 ) {
+            return n == 2;
+        }
+        for ( int f = 3; (long) f * f <= n; f += 2 ) {
+            if ( n % f == 0 ) {
+                return false;
+            }
+        }
+        return n > 1;
+    }
+}
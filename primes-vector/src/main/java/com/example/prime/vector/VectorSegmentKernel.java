@@ -0,0 +1,262 @@
+package com.example.prime.vector;
+
+import com.example.prime.core.ScalarSegmentKernel;
+import com.example.prime.core.SegmentKernel;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@link SegmentKernel} that uses the Vector API for the data parallel
+ * parts of sieving.
+ *
+ * The multiples of the primes below 64 are cleared with bit patterns that
+ * repeat every p words, several words at a time, instead of one bit at a
+ * time. Larger primes have few enough multiples per word that they are still
+ * cleared one bit at a time.
+ *
+ * Primes are extracted a byte at a time, using a table of the offsets of the
+ * bits set in each byte: the offsets of a byte are loaded into 8 lanes, the
+ * value of the byte's first bit added to every lane, and all 8 lanes stored
+ * at once. The lanes beyond the bits that were set are overwritten by the
+ * next byte.
+ *
+ * Loaded by {@link com.example.prime.core.SegmentKernels}, which needs the
+ * public no-argument constructor.
+ */
+public class VectorSegmentKernel extends ScalarSegmentKernel {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    // one lane for each bit of a byte
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_256;
+
+    // the odd primes that are cleared with patterns
+    private static final int[] SMALL_PRIMES =
+            { 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53, 59, 61 };
+
+    // PATTERNS[k] has bit i set if i is a multiple of SMALL_PRIMES[k], it
+    // repeats every SMALL_PRIMES[k] words
+    private static final long[][] PATTERNS = new long[SMALL_PRIMES.length][];
+
+    // BYTE_OFFSETS[8b + j] is 2 * the index of the j'th bit set in byte b
+    private static final int[] BYTE_OFFSETS = new int[256 * 8];
+
+    static {
+        for ( int k = 0; k < SMALL_PRIMES.length; k++ ) {
+            final int prime = SMALL_PRIMES[k];
+
+            PATTERNS[k] = new long[prime];
+            for ( int i = 0; i < 64 * prime; i += prime ) {
+                PATTERNS[k][i >>> 6] |= 1L << i;
+            }
+        }
+
+        for ( int b = 0; b < 256; b++ ) {
+            int lane = 0;
+            for ( int j = 0; j < 8; j++ ) {
+                if ( (b & (1 << j)) != 0 ) {
+                    BYTE_OFFSETS[8 * b + lane++] = 2 * j;
+                }
+            }
+        }
+    }
+
+    // each thread's patterns, aligned to the segment being sieved. Each one
+    // is followed by a copy of its first words so that a vector can be loaded
+    // from any phase without wrapping.
+    private final ThreadLocal<long[][]> alignedPatterns =
+            ThreadLocal.withInitial(() -> {
+                final long[][] patterns = new long[SMALL_PRIMES.length][];
+                for ( int k = 0; k < SMALL_PRIMES.length; k++ ) {
+                    patterns[k] = new long[SMALL_PRIMES[k] + LONGS.length()];
+                }
+                return patterns;
+            });
+
+    // each thread's position in each of its patterns
+    private final ThreadLocal<int[]> phases =
+            ThreadLocal.withInitial(() -> new int[SMALL_PRIMES.length]);
+
+    /**
+     * Construct a new {@link VectorSegmentKernel}
+     *
+     * @throws UnsupportedOperationException if the CPU has no vector
+     *         registers wider than a long
+     */
+    public VectorSegmentKernel() {
+        if ( LONGS.length() < 2 ) {
+            throw new UnsupportedOperationException(
+                    "Vectors of longs are not supported");
+        }
+    }
+
+    @Override
+    public void sieve(
+            final int[] basePrimes,
+            final long lowOdd,
+            final int count,
+            final long[] words) {
+
+        final int wordCount = (count + 63) >>> 6;
+        final long highOdd = lowOdd + 2L * (count - 1);
+
+        final long[][] patterns = alignedPatterns.get();
+        final int[] phase = phases.get();
+
+        for ( int k = 0; k < SMALL_PRIMES.length; k++ ) {
+            align(k, lowOdd, patterns[k]);
+            phase[k] = 0;
+        }
+
+        // Every value is a candidate, less the multiples of the small primes
+        final int lanes = LONGS.length();
+        int w = 0;
+        for ( ; w + lanes <= wordCount; w += lanes ) {
+            LongVector candidates = LongVector.broadcast(LONGS, -1L);
+
+            for ( int k = 0; k < SMALL_PRIMES.length; k++ ) {
+                candidates = candidates.lanewise(
+                                VectorOperators.AND_NOT,
+                                LongVector.fromArray(LONGS, patterns[k], phase[k]));
+
+                phase[k] += lanes;
+                while ( phase[k] >= SMALL_PRIMES[k] ) {
+                    phase[k] -= SMALL_PRIMES[k];
+                }
+            }
+
+            candidates.intoArray(words, w);
+        }
+
+        for ( ; w < wordCount; w++ ) {
+            long candidates = -1L;
+
+            for ( int k = 0; k < SMALL_PRIMES.length; k++ ) {
+                candidates &= ~patterns[k][phase[k]];
+
+                if ( ++phase[k] == SMALL_PRIMES[k] ) {
+                    phase[k] = 0;
+                }
+            }
+
+            words[w] = candidates;
+        }
+
+        // the bits beyond the segment
+        if ( (count & 63) != 0 ) {
+            words[wordCount - 1] &= -1L >>> (64 - (count & 63));
+        }
+
+        // the patterns clear the small primes themselves, but not 1
+        for ( final int prime : SMALL_PRIMES ) {
+            if ( prime >= lowOdd && prime <= highOdd ) {
+                final int i = (int) ((prime - lowOdd) >>> 1);
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        if ( lowOdd == 1 ) {
+            words[0] &= ~1L;
+        }
+
+        // the larger primes, one bit at a time
+        int first = 0;
+        while ( first < basePrimes.length && basePrimes[first] < 64 ) {
+            first++;
+        }
+        clearMultiples(basePrimes, first, lowOdd, count, words);
+    }
+
+    @Override
+    public int extract(
+            final long[] words,
+            final int count,
+            final long lowOdd,
+            final int[] out,
+            final int offset) {
+
+        final int wordCount = (count + 63) >>> 6;
+
+        // All 8 lanes are stored for each byte, which must not write beyond
+        // the primes of this segment, the array may be shared
+        final int end = offset + count(words, count);
+
+        int next = offset;
+        for ( int i = 0; i < wordCount; i++ ) {
+            final long bits = words[i];
+            if ( bits == 0 ) {
+                continue;
+            }
+
+            // value of bit 0 in this word
+            final long base = lowOdd + ((long) i << 7);
+
+            if ( next + Long.bitCount(bits) + 8 <= end ) {
+                for ( int b = 0; b < 8; b++ ) {
+                    final int bitsOfByte = (int) (bits >>> (8 * b)) & 0xFF;
+                    if ( bitsOfByte == 0 ) {
+                        continue;
+                    }
+
+                    IntVector.fromArray(INTS, BYTE_OFFSETS, bitsOfByte << 3)
+                             .add((int) (base + 16 * b))
+                             .intoArray(out, next);
+
+                    next += Integer.bitCount(bitsOfByte);
+                }
+            }
+            else {
+                // too close to the end, one bit at a time
+                for ( long rest = bits; rest != 0; rest &= rest - 1 ) {
+                    out[next++] =
+                        (int) (base + 2 * Long.numberOfTrailingZeros(rest));
+                }
+            }
+        }
+        return next - offset;
+    }
+
+    /**
+     * Shift the pattern of a small prime so that bit 0 is the first odd value
+     * of the segment, then repeat its first words after the end
+     */
+    private static void align(
+            final int k,
+            final long lowOdd,
+            final long[] aligned) {
+
+        final int prime = SMALL_PRIMES[k];
+        final long[] pattern = PATTERNS[k];
+
+        // index of the first odd multiple in the segment, less than prime
+        long multiple = ((lowOdd + prime - 1) / prime) * prime;
+        if ( (multiple & 1) == 0 ) {
+            multiple += prime;
+        }
+        final int shift = (int) ((multiple - lowOdd) >>> 1);
+
+        if ( shift == 0 ) {
+            System.arraycopy(pattern, 0, aligned, 0, prime);
+        }
+        else {
+            // bit i of the aligned pattern is bit i-shift of the pattern,
+            // which repeats, so word -1 is the last word
+            long previous = pattern[prime - 1];
+            for ( int w = 0; w < prime; w++ ) {
+                aligned[w] = (pattern[w] << shift) | (previous >>> (64 - shift));
+                previous = pattern[w];
+            }
+        }
+
+        for ( int w = prime; w < aligned.length; w++ ) {
+            aligned[w] = aligned[w - prime];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.prime.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import com.example.prime.core.CalculationException;
+import com.example.prime.core.EratosthenesSieve;
+import com.example.prime.core.ScalarSegmentKernel;
+import com.example.prime.core.SegmentKernel;
+import com.example.prime.core.SegmentKernels;
+import com.example.prime.core.SegmentedSieve;
+
+/**
+ * Check that {@link VectorSegmentKernel} agrees with the scalar kernel
+ */
+public class VectorSegmentKernelTest {
+
+    private static final ExecutorService executor =
+            Executors.newFixedThreadPool(2);
+
+    private static final int[] BASE_PRIMES = SegmentedSieve.basePrimes();
+
+    // Object under test
+    private final SegmentKernel kernel = new VectorSegmentKernel();
+
+    /**
+     * Stop the executor service once testing is finished to prevent it from
+     * keeping the process alive for too long.
+     */
+    @AfterClass
+    public static void shutDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * The kernel is found and used when it's on the class path
+     */
+    @Test
+    public void testLoaded() {
+        assertTrue(SegmentKernels.vector().isPresent());
+        assertTrue(SegmentKernels.fastest() instanceof VectorSegmentKernel);
+    }
+
+    /**
+     * Segments that start among the small primes, at awkward sizes and near
+     * the top of the int range match the scalar kernel
+     */
+    @Test
+    public void testMatchesScalar() {
+        final Random random = new Random(42);
+
+        for ( final long lowOdd : new long[] { 1, 3, 5, 61, 63, 65 } ) {
+            for ( final int count : new int[] { 1, 2, 63, 64, 65, 1000, 4097 } ) {
+                assertSegment(lowOdd, count);
+            }
+        }
+
+        for ( int i = 0; i < 200; i++ ) {
+            final long lowOdd = (random.nextInt(Integer.MAX_VALUE - 2000000)) | 1;
+            assertSegment(lowOdd, 1 + random.nextInt(1000000));
+        }
+
+        assertSegment(Integer.MAX_VALUE - 2 * 99999L, 100000);
+    }
+
+    /**
+     * A sieve using the kernel finds the same primes
+     */
+    @Test
+    public void testSieve() throws CalculationException {
+        final SegmentedSieve sieve = new SegmentedSieve(executor, kernel);
+
+        assertEquals(
+                new EratosthenesSieve().primesUpTo(2000000),
+                sieve.primesUpTo(2000000));
+    }
+
+    private void assertSegment(final long lowOdd, final int count) {
+        final SegmentKernel scalar = ScalarSegmentKernel.INSTANCE;
+        final int words = (count + 63) / 64;
+
+        final long[] expectedWords = new long[words];
+        final long[] actualWords = new long[words];
+        scalar.sieve(BASE_PRIMES, lowOdd, count, expectedWords);
+        kernel.sieve(BASE_PRIMES, lowOdd, count, actualWords);
+
+        final String segment = lowOdd + "+" + count;
+        assertArrayEquals(segment, expectedWords, actualWords);
+
+        final int[] expected = new int[count + 2];
+        final int[] actual = new int[count + 2];
+        // a value after the segment's primes must be left alone
+        Arrays.fill(actual, -1);
+
+        final int found = scalar.extract(expectedWords, count, lowOdd, expected, 1);
+        assertEquals(segment, found, kernel.count(actualWords, count));
+        assertEquals(segment, found, kernel.extract(actualWords, count, lowOdd, actual, 1));
+        assertArrayEquals(
+                segment,
+                Arrays.copyOfRange(expected, 1, found + 1),
+                Arrays.copyOfRange(actual, 1, found + 1));
+        assertEquals(segment, -1, actual[found + 1]);
+    }
+}